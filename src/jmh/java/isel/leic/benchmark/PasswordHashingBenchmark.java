@@ -0,0 +1,49 @@
+package isel.leic.benchmark;
+
+import isel.leic.utils.Argon2PasswordHasher;
+import isel.leic.utils.BCryptPasswordHasher;
+import isel.leic.utils.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of one password verification, the CPU cost of a login, for candidate hashing settings. Run it on the node
+ * type being tuned and pick the strongest setting whose latency is acceptable, e.g.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.includes=PasswordHashing}; other settings can be passed with
+ * JMH's {@code -p setting=...}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    // bcrypt:<cost> or argon2id:<memory KiB>:<iterations>:<parallelism>
+    @Param({"bcrypt:10", "bcrypt:12", "argon2id:19456:2:1", "argon2id:65536:3:1"})
+    public String setting;
+
+    private PasswordHasher hasher;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = setting.split(":");
+        hasher = switch (parts[0]) {
+            case "bcrypt" -> new BCryptPasswordHasher(Integer.parseInt(parts[1]));
+            case "argon2id" -> new Argon2PasswordHasher(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]));
+            default -> throw new IllegalArgumentException("Unknown setting: " + setting);
+        };
+        hash = hasher.hash(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,46 @@
+package isel.leic.benchmark;
+
+import isel.leic.utils.TokenUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.PrivateKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing one token when the signing key is parsed for every token, as login used to do,
+ * against signing with a key parsed once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenSigningBenchmark {
+
+    private static final String KEY_LOCATION = "/privateKey.pem";
+    private static final String ISSUER = "Cloudshare";
+    private static final long DURATION = 604800;
+
+    private PrivateKey cachedKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        cachedKey = TokenUtils.readPrivateKey(KEY_LOCATION);
+    }
+
+    @Benchmark
+    public String parseKeyAndSign() throws Exception {
+        return TokenUtils.signToken(TokenUtils.readPrivateKey(KEY_LOCATION), null, 42L, ISSUER, DURATION);
+    }
+
+    @Benchmark
+    public String signWithCachedKey() {
+        return TokenUtils.signToken(cachedKey, null, 42L, ISSUER, DURATION);
+    }
+
+    @Benchmark
+    public PrivateKey parseKeyOnly() throws Exception {
+        return TokenUtils.readPrivateKey(KEY_LOCATION);
+    }
+}
@@ -0,0 +1,15 @@
+package isel.leic.exception;
+
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final long size;
+
+    public RangeNotSatisfiableException(long size) {
+        super("Requested range not satisfiable for object of " + size + " bytes");
+        this.size = size;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
@@ -4,4 +4,8 @@ public class TokenException extends RuntimeException {
     public TokenException(String message){
         super(message);
     }
+
+    public TokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -4,6 +4,7 @@ package isel.leic.exception.mapper;
 import isel.leic.exception.*;
 import jakarta.ws.rs.ForbiddenException;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
 import org.jboss.resteasy.reactive.RestResponse;
 import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 import org.slf4j.Logger;
@@ -90,6 +91,21 @@ public class ExceptionMapper {
         return RestResponse.status(Response.Status.NOT_FOUND, buildErrorMessage("File sharing not found - " + e.getMessage()));
     }
 
+    @ServerExceptionMapper
+    public RestResponse<String> mapRangeNotSatisfiableException(RangeNotSatisfiableException e) {
+        LOGGER.error("Range not satisfiable: {}", e.getMessage());
+        return RestResponse.ResponseBuilder.<String>create(RestResponse.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header("Content-Range", "bytes */" + e.getSize())
+                .entity(buildErrorMessage("Range not satisfiable - " + e.getMessage()))
+                .build();
+    }
+
+    @ServerExceptionMapper
+    public RestResponse<String> mapBulkheadException(BulkheadException e) {
+        LOGGER.warn("Endpoint concurrency limit reached: {}", e.getMessage());
+        return RestResponse.status(Response.Status.SERVICE_UNAVAILABLE, buildErrorMessage("Too many concurrent requests, try again later"));
+    }
+
     public String buildErrorMessage(String message){
         return "{\"Error\":\" "+message+"\"}";
     }
@@ -3,7 +3,8 @@ package isel.leic.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "file_sharing")
+@Table(name = "file_sharing", uniqueConstraints = @UniqueConstraint(name = "uk_file_sharing_share",
+        columnNames = {"shared_by_user_id", "shared_to_user_id", "filename"}))
 public class FileSharing {
 
     @Id
@@ -17,12 +18,19 @@ public class FileSharing {
     @Column(name = "shared_to_user_id")
     private Long sharedToUserId;
 
+    // Set instead of sharedToUserId for group shares, which every current member of the group can access
+    @Column(name = "shared_to_group_id")
+    private Long sharedToGroupId;
+
     @Transient
     private String sharedByUsername;
 
     @Transient
     private String sharedToUsername;
 
+    @Transient
+    private String sharedToGroupName;
+
     @Column(name = "filename", nullable = false)
     private String filename;
 
@@ -37,6 +45,25 @@ public class FileSharing {
         this.filename = filename;
     }
 
+    public static FileSharing toGroup(Long sharedByUserId, Long sharedToGroupId, String filename) {
+        FileSharing fileSharing = new FileSharing(sharedByUserId, null, filename);
+        fileSharing.sharedToGroupId = sharedToGroupId;
+        return fileSharing;
+    }
+
+    // Used by the repository's projection queries, which read the usernames and group name in the same statement
+    public FileSharing(Long id, Long sharedByUserId, String sharedByUsername, Long sharedToUserId, String sharedToUsername,
+                       Long sharedToGroupId, String sharedToGroupName, String filename) {
+        this.id = id;
+        this.sharedByUserId = sharedByUserId;
+        this.sharedByUsername = sharedByUsername;
+        this.sharedToUserId = sharedToUserId;
+        this.sharedToUsername = sharedToUsername;
+        this.sharedToGroupId = sharedToGroupId;
+        this.sharedToGroupName = sharedToGroupName;
+        this.filename = filename;
+    }
+
 
     public Long getId() {
         return id;
@@ -62,6 +89,14 @@ public class FileSharing {
         this.sharedToUserId = sharedToUserId;
     }
 
+    public Long getSharedToGroupId() {
+        return sharedToGroupId;
+    }
+
+    public String getSharedToGroupName() {
+        return sharedToGroupName;
+    }
+
     public void setSharedByUsername(String sharedByUsername){
         this.sharedByUsername = sharedByUsername;
     }
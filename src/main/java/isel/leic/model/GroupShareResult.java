@@ -0,0 +1,8 @@
+package isel.leic.model;
+
+/**
+ * Outcome of sharing a file with a group: how many members currently have access through the share, and
+ * whether the share was created or already existed.
+ */
+public record GroupShareResult(Long groupId, String filename, int members, boolean created) {
+}
@@ -0,0 +1,48 @@
+package isel.leic.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Whether the object index of one bucket can answer listings in place of S3.
+ */
+@Entity
+@Table(name = "object_index_state")
+public class ObjectIndexState {
+
+    @Id
+    @Column(name = "bucket_name")
+    private String bucketName;
+
+    // Start of the last full reconciliation, or of the bucket's life if it was created empty by this application
+    @Column(name = "reconciled_at")
+    private Instant reconciledAt;
+
+    // Until this instant the bucket may be written to outside this application
+    @Column(name = "dirty_until")
+    private Instant dirtyUntil;
+
+    public ObjectIndexState() {
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public Instant getReconciledAt() {
+        return reconciledAt;
+    }
+
+    public Instant getDirtyUntil() {
+        return dirtyUntil;
+    }
+
+    /**
+     * The index is authoritative once reconciled, until a write outside the application may have happened after
+     * the reconciliation started.
+     */
+    public boolean isAuthoritative() {
+        return reconciledAt != null && (dirtyUntil == null || !dirtyUntil.isAfter(reconciledAt));
+    }
+}
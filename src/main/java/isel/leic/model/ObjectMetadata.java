@@ -0,0 +1,123 @@
+package isel.leic.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Copy of the listing attributes of one stored object, so listings can be answered from the database.
+ */
+@Entity
+@Table(name = "object_metadata", uniqueConstraints = @UniqueConstraint(columnNames = {"bucket_name", "object_key"}))
+public class ObjectMetadata {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bucket_name", nullable = false)
+    private String bucketName;
+
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+
+    // Everything up to and including the last '/', the folder the object is listed under
+    @Column(name = "parent_prefix", nullable = false)
+    private String parentPrefix;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "etag")
+    private String eTag;
+
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "storage_class")
+    private String storageClass;
+
+    // When this row was last written; reconciliation drops rows it did not see that are older than the run
+    @Column(name = "indexed_at", nullable = false)
+    private Instant indexedAt;
+
+    public ObjectMetadata() {
+    }
+
+    public ObjectMetadata(String bucketName, String objectKey, long size, String eTag, Instant lastModified,
+                          String contentType, String storageClass) {
+        this.bucketName = bucketName;
+        this.objectKey = objectKey;
+        this.parentPrefix = parentPrefixOf(objectKey);
+        this.size = size;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.storageClass = storageClass;
+        this.indexedAt = Instant.now();
+    }
+
+    public static String parentPrefixOf(String objectKey) {
+        return objectKey.substring(0, objectKey.lastIndexOf('/') + 1);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public void setObjectKey(String objectKey) {
+        this.objectKey = objectKey;
+        this.parentPrefix = parentPrefixOf(objectKey);
+    }
+
+    public String getParentPrefix() {
+        return parentPrefix;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public void setETag(String eTag) {
+        this.eTag = eTag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getStorageClass() {
+        return storageClass;
+    }
+
+    public Instant getIndexedAt() {
+        return indexedAt;
+    }
+
+    public void setIndexedAt(Instant indexedAt) {
+        this.indexedAt = indexedAt;
+    }
+}
@@ -0,0 +1,9 @@
+package isel.leic.model;
+
+import java.util.List;
+
+/**
+ * One page of a shared-files view. {@code nextAfterId} is the share ID to continue after, or {@code null} on the last page.
+ */
+public record SharedFilesPage(List<FileSharingResponse> files, Long nextAfterId) {
+}
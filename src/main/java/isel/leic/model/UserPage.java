@@ -0,0 +1,9 @@
+package isel.leic.model;
+
+import java.util.List;
+
+/**
+ * One page of the user listing. {@code nextAfterId} is the user ID to continue after, or {@code null} on the last page.
+ */
+public record UserPage(List<UserSummary> users, Long nextAfterId) {
+}
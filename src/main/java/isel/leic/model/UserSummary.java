@@ -0,0 +1,7 @@
+package isel.leic.model;
+
+/**
+ * The public part of a user, read as a projection so listings never load password hashes.
+ */
+public record UserSummary(Long id, String username) {
+}
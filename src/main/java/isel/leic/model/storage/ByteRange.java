@@ -0,0 +1,71 @@
+package isel.leic.model.storage;
+
+import isel.leic.exception.RangeNotSatisfiableException;
+
+/**
+ * Single inclusive byte range resolved against an object of known size.
+ */
+public record ByteRange(long start, long end) {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    /**
+     * Parses an HTTP {@code Range} header value. Returns {@code null} when the header is absent,
+     * malformed or asks for several ranges, in which case the whole object should be served.
+     *
+     * @throws RangeNotSatisfiableException when the range lies entirely outside the object
+     */
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith(BYTES_UNIT) || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0 || size == 0) {
+                    throw new RangeNotSatisfiableException(size);
+                }
+                return new ByteRange(Math.max(0, size - suffixLength), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (end < start) {
+                return null;
+            }
+            if (start >= size) {
+                throw new RangeNotSatisfiableException(size);
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * Value for the S3 {@code Range} request parameter.
+     */
+    public String toHeaderValue() {
+        return BYTES_UNIT + start + "-" + end;
+    }
+
+    /**
+     * Value for the HTTP {@code Content-Range} response header.
+     */
+    public String toContentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
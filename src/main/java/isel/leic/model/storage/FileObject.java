@@ -1,5 +1,6 @@
 package isel.leic.model.storage;
 
+import isel.leic.model.ObjectMetadata;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 import java.time.Instant;
@@ -26,6 +27,15 @@ public class FileObject {
         return file;
     }
 
+    public static FileObject from(ObjectMetadata metadata) {
+        return new FileObject()
+                .setObjectKey(metadata.getObjectKey())
+                .setSize(metadata.getSize())
+                .setLastModified(metadata.getLastModified())
+                .setETag(metadata.getETag())
+                .setStorageClass(metadata.getStorageClass());
+    }
+
     public String getObjectKey() {
         return objectKey;
     }
@@ -0,0 +1,9 @@
+package isel.leic.model.storage;
+
+import java.util.List;
+
+/**
+ * One page of a bucket listing. {@code nextContinuationToken} is {@code null} on the last page.
+ */
+public record ObjectPage(List<FileObject> objects, String nextContinuationToken) {
+}
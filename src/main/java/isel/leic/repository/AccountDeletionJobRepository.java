@@ -0,0 +1,41 @@
+package isel.leic.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import isel.leic.model.AccountDeletionJob;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@ApplicationScoped
+public class AccountDeletionJobRepository implements PanacheRepository<AccountDeletionJob> {
+
+    // Hibernate's LockOptions.SKIP_LOCKED: rows locked by another pod are skipped instead of waited on
+    private static final int SKIP_LOCKED = -2;
+
+    public Optional<AccountDeletionJob> findLatestByUserId(Long userId) {
+        return find("userId", Sort.descending("id"), userId).firstResultOptional();
+    }
+
+    /**
+     * Locks the oldest job that is pending or whose worker lease has expired. Must run inside a transaction.
+     */
+    public Optional<AccountDeletionJob> lockNextRunnable(Instant now) {
+        return find("status in ?1 and (leaseUntil is null or leaseUntil < ?2)", Sort.ascending("id"),
+                List.of(AccountDeletionJob.Status.PENDING, AccountDeletionJob.Status.RUNNING), now)
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .withHint("jakarta.persistence.lock.timeout", SKIP_LOCKED)
+                .firstResultOptional();
+    }
+
+    /**
+     * Records progress and extends the lease. Progress callbacks can arrive out of order, so the count never goes back.
+     */
+    public int updateProgress(Long jobId, long objectsDeleted, Instant leaseUntil) {
+        return update("objectsDeleted = ?1, leaseUntil = ?2, updatedAt = ?3 where id = ?4 and objectsDeleted < ?1",
+                objectsDeleted, leaseUntil, Instant.now(), jobId);
+    }
+}
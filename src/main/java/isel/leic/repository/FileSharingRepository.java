@@ -4,14 +4,34 @@ import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import isel.leic.model.FileSharing;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.TypedQuery;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 @ApplicationScoped
 public class FileSharingRepository implements PanacheRepository<FileSharing> {
 
+    private static final String WITH_USERNAMES = "select new isel.leic.model.FileSharing(fs.id, fs.sharedByUserId, sharedBy.username, " +
+            "fs.sharedToUserId, sharedTo.username, fs.sharedToGroupId, sharedToGroup.name, fs.filename) from FileSharing fs " +
+            "left join User sharedBy on sharedBy.id = fs.sharedByUserId " +
+            "left join User sharedTo on sharedTo.id = fs.sharedToUserId " +
+            "left join Group sharedToGroup on sharedToGroup.id = fs.sharedToGroupId ";
+
+    private static final String SHARE_TO_GROUP = """
+            WITH inserted AS (
+                INSERT INTO file_sharing (shared_by_user_id, shared_to_group_id, filename)
+                VALUES (:by, :group, :filename)
+                ON CONFLICT (shared_by_user_id, shared_to_group_id, filename) WHERE shared_to_group_id IS NOT NULL DO NOTHING
+                RETURNING 1
+            )
+            SELECT (SELECT count(*) FROM group_member WHERE group_id = :group), (SELECT count(*) FROM inserted)
+            """;
+
     public boolean existsByUsersAndFilename(Long sharedByUserId, Long sharedToUserId, String filename) {
         try {
 
@@ -25,6 +45,50 @@ public class FileSharingRepository implements PanacheRepository<FileSharing> {
     }
 
 
+    /**
+     * Whether the owner shared the file with the user, directly or through a group the user is a member of.
+     * Answered from the (shared_by_user_id, filename) index and the group_member primary key.
+     */
+    public boolean existsShare(Long sharedByUserId, Long sharedToUserId, String filename) {
+        return !getEntityManager().createQuery("select 1 from FileSharing fs " +
+                        "where fs.sharedByUserId = :by and fs.filename = :filename and (fs.sharedToUserId = :to " +
+                        "or exists (select 1 from GroupMember gm where gm.groupId = fs.sharedToGroupId and gm.userId = :to))", Integer.class)
+                .setParameter("by", sharedByUserId)
+                .setParameter("to", sharedToUserId)
+                .setParameter("filename", filename)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Which of the files the owner shared with the user, directly or through a group, in one query over the
+     * (shared_by_user_id, filename) index.
+     */
+    public Set<String> findSharedFilenames(Long sharedByUserId, Long sharedToUserId, Collection<String> filenames) {
+        return new HashSet<>(getEntityManager().createQuery("select distinct fs.filename from FileSharing fs " +
+                        "where fs.sharedByUserId = :by and fs.filename in :filenames and (fs.sharedToUserId = :to " +
+                        "or exists (select 1 from GroupMember gm where gm.groupId = fs.sharedToGroupId and gm.userId = :to))", String.class)
+                .setParameter("by", sharedByUserId)
+                .setParameter("to", sharedToUserId)
+                .setParameter("filenames", filenames)
+                .getResultList());
+    }
+
+    /**
+     * Shares the file with the group as a single row, unless it already is, in one statement.
+     *
+     * @return the number of members of the group and the number of rows created, 0 or 1
+     */
+    public int[] shareToGroup(Long sharedByUserId, Long groupId, String filename) {
+        Object[] counts = (Object[]) getEntityManager().createNativeQuery(SHARE_TO_GROUP)
+                .setParameter("group", groupId)
+                .setParameter("by", sharedByUserId)
+                .setParameter("filename", filename)
+                .getSingleResult();
+        return new int[]{((Number) counts[0]).intValue(), ((Number) counts[1]).intValue()};
+    }
+
     public Optional<List<FileSharing>> findBySharedByUserId(Long sharedByUserId) {
         List<FileSharing> fileSharings = list("sharedByUserId", sharedByUserId);
         return Optional.ofNullable(fileSharings.isEmpty() ? null : fileSharings);
@@ -39,6 +103,35 @@ public class FileSharingRepository implements PanacheRepository<FileSharing> {
         List<FileSharing> fileSharings = list("sharedToGroupId", sharedToGroupId);
         return Optional.ofNullable(fileSharings.isEmpty() ? null : fileSharings);
     }
+    /**
+     * Shares created by the user, with usernames and group names filled in, ordered by ID and starting after {@code afterId}.
+     */
+    public List<FileSharing> findBySharedByUserIdWithUsernames(Long sharedByUserId, Long afterId, int limit) {
+        return getEntityManager().createQuery(WITH_USERNAMES + "where fs.sharedByUserId = :user and fs.id > :after order by fs.id", FileSharing.class)
+                .setParameter("user", sharedByUserId)
+                .setParameter("after", afterId == null ? 0L : afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Shares the user can access, either directly or through one of {@code groupIds}, with usernames and group
+     * names filled in, ordered by ID and starting after {@code afterId}.
+     */
+    public List<FileSharing> findBySharedToUserIdWithUsernames(Long sharedToUserId, Collection<Long> groupIds, Long afterId, int limit) {
+        String recipient = groupIds.isEmpty()
+                ? "fs.sharedToUserId = :user"
+                : "(fs.sharedToUserId = :user or fs.sharedToGroupId in :groups)";
+        TypedQuery<FileSharing> query = getEntityManager().createQuery(WITH_USERNAMES + "where " + recipient + " and fs.id > :after order by fs.id", FileSharing.class)
+                .setParameter("user", sharedToUserId)
+                .setParameter("after", afterId == null ? 0L : afterId)
+                .setMaxResults(limit);
+        if (!groupIds.isEmpty()) {
+            query.setParameter("groups", groupIds);
+        }
+        return query.getResultList();
+    }
+
     public Optional<List<FileSharing>> findBySharedByUserIdAndFilename(Long sharedByUserId, String currentFilename) {
         List<FileSharing> fileSharings = find("sharedByUserId = ?1 AND filename = ?2", sharedByUserId, currentFilename)
                     .list();
@@ -20,7 +20,26 @@ public class GroupMemberRepository implements PanacheRepository<GroupMember> {
         return Optional.ofNullable(groupMembers.isEmpty() ? null : groupMembers);
     }
 
-    public void deleteByGroupIdAndUserId(Long groupId, Long userId) {
-        delete("groupId = ?1 and userId = ?2", groupId, userId);
+    public List<Long> findGroupIdsByUserId(Long userId) {
+        return getEntityManager().createQuery("select gm.groupId from GroupMember gm where gm.userId = :user", Long.class)
+                .setParameter("user", userId)
+                .getResultList();
+    }
+
+    /**
+     * Looks the membership up by primary key without loading the group's other members.
+     */
+    public boolean existsMember(Long groupId, Long userId) {
+        return !getEntityManager().createQuery(
+                        "select 1 from GroupMember gm where gm.userId = :user and gm.groupId = :group", Integer.class)
+                .setParameter("user", userId)
+                .setParameter("group", groupId)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    public long deleteByGroupIdAndUserId(Long groupId, Long userId) {
+        return delete("groupId = ?1 and userId = ?2", groupId, userId);
     }
 }
@@ -0,0 +1,50 @@
+package isel.leic.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import isel.leic.model.ObjectIndexState;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Instant;
+
+@ApplicationScoped
+public class ObjectIndexStateRepository implements PanacheRepositoryBase<ObjectIndexState, String> {
+
+    // Both instants only move forward, so concurrent writers from several instances cannot undo each other
+    private static final String MARK_RECONCILED = """
+            INSERT INTO object_index_state (bucket_name, reconciled_at) VALUES (?1, ?2)
+            ON CONFLICT (bucket_name) DO UPDATE SET
+                reconciled_at = GREATEST(object_index_state.reconciled_at, excluded.reconciled_at)
+            """;
+
+    private static final String MARK_DIRTY = """
+            INSERT INTO object_index_state (bucket_name, dirty_until) VALUES (?1, ?2)
+            ON CONFLICT (bucket_name) DO UPDATE SET
+                dirty_until = GREATEST(object_index_state.dirty_until, excluded.dirty_until)
+            """;
+
+    public boolean isAuthoritative(String bucketName) {
+        ObjectIndexState state = findById(bucketName);
+        return state != null && state.isAuthoritative();
+    }
+
+    /**
+     * Records a reconciliation that started at {@code start}. Must run inside a transaction.
+     */
+    public void markReconciled(String bucketName, Instant start) {
+        getEntityManager().createNativeQuery(MARK_RECONCILED)
+                .setParameter(1, bucketName)
+                .setParameter(2, start)
+                .executeUpdate();
+    }
+
+    /**
+     * Records that the bucket may be written to outside the application until {@code until}. Must run inside a
+     * transaction.
+     */
+    public void markDirty(String bucketName, Instant until) {
+        getEntityManager().createNativeQuery(MARK_DIRTY)
+                .setParameter(1, bucketName)
+                .setParameter(2, until)
+                .executeUpdate();
+    }
+}
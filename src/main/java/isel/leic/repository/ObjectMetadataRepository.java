@@ -0,0 +1,116 @@
+package isel.leic.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import isel.leic.model.ObjectMetadata;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@ApplicationScoped
+public class ObjectMetadataRepository implements PanacheRepository<ObjectMetadata> {
+
+    private static final String UPSERT = """
+            INSERT INTO object_metadata
+                (bucket_name, object_key, parent_prefix, size, etag, last_modified, content_type, storage_class, indexed_at)
+            VALUES (?1, ?2, ?3, ?4, CAST(?5 AS varchar), ?6, CAST(?7 AS varchar), CAST(?8 AS varchar), ?9)
+            ON CONFLICT (bucket_name, object_key) DO UPDATE SET
+                parent_prefix = excluded.parent_prefix,
+                size = excluded.size,
+                etag = excluded.etag,
+                last_modified = excluded.last_modified,
+                content_type = COALESCE(excluded.content_type, object_metadata.content_type),
+                storage_class = COALESCE(excluded.storage_class, object_metadata.storage_class),
+                indexed_at = excluded.indexed_at
+            """;
+
+    /**
+     * Inserts or replaces the row of an object. A missing content type or storage class keeps the stored one,
+     * since bucket listings do not report content types.
+     */
+    public void upsert(ObjectMetadata metadata) {
+        getEntityManager().createNativeQuery(UPSERT)
+                .setParameter(1, metadata.getBucketName())
+                .setParameter(2, metadata.getObjectKey())
+                .setParameter(3, metadata.getParentPrefix())
+                .setParameter(4, metadata.getSize())
+                .setParameter(5, metadata.getETag())
+                .setParameter(6, metadata.getLastModified())
+                .setParameter(7, metadata.getContentType())
+                .setParameter(8, metadata.getStorageClass())
+                .setParameter(9, metadata.getIndexedAt())
+                .executeUpdate();
+    }
+
+    public Optional<ObjectMetadata> findByKey(String bucketName, String objectKey) {
+        return find("bucketName = ?1 and objectKey = ?2", bucketName, objectKey).firstResultOptional();
+    }
+
+    /**
+     * Returns up to {@code limit} objects after {@code afterKey} in key order. With {@code directChildrenOnly}
+     * the result matches a listing with a '/' delimiter: objects nested in sub-folders of the prefix are left out.
+     */
+    public List<ObjectMetadata> findPage(String bucketName, String prefix, boolean directChildrenOnly, String afterKey, int limit) {
+        StringBuilder query = new StringBuilder("bucketName = :bucket");
+        Parameters parameters = Parameters.with("bucket", bucketName);
+        if (prefix != null && !prefix.isEmpty()) {
+            query.append(" and objectKey like :prefix escape '\\'");
+            parameters.and("prefix", escapeLike(prefix) + "%");
+        }
+        if (directChildrenOnly) {
+            query.append(" and parentPrefix = :parent");
+            parameters.and("parent", ObjectMetadata.parentPrefixOf(prefix == null ? "" : prefix));
+        }
+        if (afterKey != null) {
+            query.append(" and objectKey > :after");
+            parameters.and("after", afterKey);
+        }
+        return find(query.toString(), Sort.ascending("objectKey"), parameters)
+                .page(0, limit)
+                .list();
+    }
+
+    /**
+     * Returns every object of the bucket whose key starts with any of the prefixes, in a single query.
+     */
+    public List<ObjectMetadata> findByPrefixes(String bucketName, Collection<String> prefixes) {
+        StringBuilder query = new StringBuilder("bucketName = :bucket and (");
+        Parameters parameters = Parameters.with("bucket", bucketName);
+        int i = 0;
+        for (String prefix : prefixes) {
+            if (i > 0) {
+                query.append(" or ");
+            }
+            query.append("objectKey like :prefix").append(i).append(" escape '\\'");
+            parameters.and("prefix" + i, escapeLike(prefix) + "%");
+            i++;
+        }
+        query.append(")");
+        return list(query.toString(), Sort.ascending("objectKey"), parameters);
+    }
+
+    public long deleteByKey(String bucketName, String objectKey) {
+        return delete("bucketName = ?1 and objectKey = ?2", bucketName, objectKey);
+    }
+
+    public long deleteByBucket(String bucketName) {
+        return delete("bucketName", bucketName);
+    }
+
+    /**
+     * Removes rows of the bucket that were not rewritten since {@code before}.
+     */
+    public long deleteIndexedBefore(String bucketName, Instant before) {
+        return delete("bucketName = ?1 and indexedAt < ?2", bucketName, before);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -3,6 +3,7 @@ package isel.leic.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import isel.leic.model.User;
+import isel.leic.model.UserSummary;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
@@ -11,6 +12,16 @@ import java.util.Optional;
 
 @ApplicationScoped
 public class UserRepository implements PanacheRepository<User> {
+
+    // JPQL has no COLLATE, so the prefix search is native. Matching in "C" as well lets idx_users_username_pattern
+    // serve both the LIKE range and the order
+    public static final String USERNAME_PREFIX = """
+            SELECT id, username FROM users
+            WHERE username COLLATE "C" LIKE ?1 ESCAPE '\\'
+            ORDER BY username COLLATE "C"
+            LIMIT ?2
+            """;
+
     public Optional<User> findByUsername(String username) {
         User user = find("username", username).firstResult();
         return Optional.ofNullable(user);
@@ -20,9 +31,44 @@ public class UserRepository implements PanacheRepository<User> {
         return Optional.ofNullable(users.isEmpty() ? null : users);
     }
 
-    public Optional<List<User>> findByUsernamePrefix(String prefix) {
-        List<User> users = list("username like ?1", prefix + "%");
-        return users.isEmpty() ? Optional.empty() : Optional.of(users);
+    /**
+     * Replaces the password hash unless the password was changed since {@code currentHash} was read.
+     */
+    public boolean updatePasswordHash(Long userId, String currentHash, String newHash) {
+        return update("password = ?1 where id = ?2 and password = ?3", newHash, userId, currentHash) > 0;
+    }
+
+    /**
+     * Users ordered by ID and starting after {@code afterId}, read as ID and username only.
+     */
+    public List<UserSummary> findSummaries(Long afterId, int limit) {
+        return getEntityManager().createQuery(
+                        "select new isel.leic.model.UserSummary(u.id, u.username) from User u where u.id > :after order by u.id",
+                        UserSummary.class)
+                .setParameter("after", afterId == null ? 0L : afterId)
+                .setMaxResults(limit)
+                .getResultList();
     }
 
+    /**
+     * The first {@code limit} users, by username, whose username starts with the prefix. The prefix is matched
+     * literally, so '%' and '_' typed by a user are not wildcards. Usernames are ordered byte-wise ("C" collation),
+     * the order of the in-memory username index, so results do not change order once the index is built.
+     */
+    @SuppressWarnings("unchecked")
+    public List<UserSummary> findByUsernamePrefix(String prefix, int limit) {
+        List<Object[]> rows = getEntityManager().createNativeQuery(USERNAME_PREFIX)
+                .setParameter(1, escapeLike(prefix) + "%")
+                .setParameter(2, limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new UserSummary(((Number) row[0]).longValue(), (String) row[1]))
+                .toList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
 }
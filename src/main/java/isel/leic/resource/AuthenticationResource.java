@@ -1,12 +1,13 @@
 package isel.leic.resource;
 
 import io.quarkus.security.Authenticated;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.smallrye.common.constraint.NotNull;
 import jakarta.json.Json;
 import isel.leic.model.User;
 import isel.leic.service.MinioService;
+import isel.leic.service.TokenService;
 import isel.leic.service.UserService;
-import isel.leic.utils.TokenUtils;
 import jakarta.annotation.security.PermitAll;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
@@ -31,16 +32,15 @@ public class AuthenticationResource {
     UserService userService;
     @Inject
     MinioService minioService;
-    @ConfigProperty(name = "com.cloudshare.quarkusjwt.jwt.duration")
-    Long tokenDuration;
-    @ConfigProperty(name = "mp.jwt.verify.issuer")
-    String tokenIssuer;
+    @Inject
+    TokenService tokenService;
     @ConfigProperty(name = "user.bucket.suffix")
     String bucket_suffix;
 
 
 
     @POST
+    @RunOnVirtualThread
     @PermitAll
     @Path("/login")
     public Response login(@NotNull LoginRequest loginRequest) throws Exception {
@@ -48,7 +48,7 @@ public class AuthenticationResource {
         User user = userService.authenticate(loginRequest.username, loginRequest.password);
 
         LOGGER.info("HTTP 200 OK: User authenticated successfully: {}", user.getUsername());
-        String token = TokenUtils.generateToken(user.getId(), tokenIssuer, tokenDuration);
+        String token = tokenService.issueToken(user.getId());
         LOGGER.info("Generated token for user: {}", user.getUsername());
 
 
@@ -58,6 +58,7 @@ public class AuthenticationResource {
 
 
     @POST
+    @RunOnVirtualThread
     @PermitAll
     @Path("/signup")
     public Response signup(@NotNull LoginRequest signupRequest) throws Exception {
@@ -71,18 +72,19 @@ public class AuthenticationResource {
         User newUser = new User(signupRequest.username, signupRequest.password);
         userService.createUser(newUser);
         String createBucket = minioService.createBucket(newUser.getId() + bucket_suffix);
-        String token = TokenUtils.generateToken(newUser.getId(), tokenIssuer, tokenDuration);
+        String token = tokenService.issueToken(newUser.getId());
         LOGGER.info("HTTP 200 OK: User signed up successfully: {}", newUser.getUsername());
         return Response.ok(userAndTokenJson(newUser, token)).build();
     }
 
     @POST
+    @RunOnVirtualThread
     @Path("/refresh-token")
     @Authenticated
     public Response refreshToken(@Context SecurityContext securityContext) throws Exception {
         String userId = securityContext.getUserPrincipal().getName();
         LOGGER.info("Received refresh token request for user: {}", userId);
-        String newToken = TokenUtils.generateToken(Long.valueOf(userId), tokenIssuer, tokenDuration);
+        String newToken = tokenService.issueToken(Long.valueOf(userId));
         LOGGER.info("HTTP 200 OK: Token refreshed successfully for user: {}", userId);
         return Response.ok(Json.createObjectBuilder().add("token", newToken).build()).build();
     }
@@ -1,9 +1,11 @@
 package isel.leic.resource;
 
 import io.quarkus.security.Authenticated;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.smallrye.common.constraint.NotNull;
 import isel.leic.model.FileSharing;
-import isel.leic.model.FileSharingResponse;
+import isel.leic.model.GroupShareResult;
+import isel.leic.model.SharedFilesPage;
 import isel.leic.service.FileSharingService;
 import isel.leic.utils.AuthorizationUtils;
 import jakarta.inject.Inject;
@@ -12,6 +14,7 @@ import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,13 +26,19 @@ import java.util.List;
 public class FileSharingResource {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileSharingResource.class);
+    public static final String NEXT_AFTER_ID = "X-Next-After-Id";
     @Inject
     FileSharingService fileSharingService;
+    @ConfigProperty(name = "fileshare.page-size", defaultValue = "500")
+    int pageSize;
 
     @GET
+    @RunOnVirtualThread
     @Authenticated
     public Response getFilesSharedByUser(
             @PathParam("id") @NotNull Long userId,
+            @QueryParam("afterId") Long afterId,
+            @QueryParam("limit") Integer limit,
             @Context SecurityContext securityContext
     ){
 
@@ -37,27 +46,37 @@ public class FileSharingResource {
 
         AuthorizationUtils.checkAuthorization(userId, securityContext.getUserPrincipal().getName());
 
-        List<FileSharingResponse> sharedFiles = fileSharingService.getFilesSharedByUser(userId);
+        if (limit != null && limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("limit must be positive").build();
+        }
+        SharedFilesPage sharedFiles = fileSharingService.getFilesSharedByUser(userId, afterId, limit == null ? pageSize : limit);
         LOGGER.info("HTTP 200 OK: Files shared by user with ID {} fetched successfully", userId);
-        return Response.ok().entity(sharedFiles).build();
+        return page(sharedFiles);
     }
 
     @GET
+    @RunOnVirtualThread
     @Authenticated
     @Path("/received")
     public Response getFilesSharedToUser(
             @PathParam("id") @NotNull Long sharedToUserId,
+            @QueryParam("afterId") Long afterId,
+            @QueryParam("limit") Integer limit,
             @Context SecurityContext securityContext
     ){
 
         LOGGER.info("Received request to fetch files shared to user with ID: {} ", sharedToUserId);
         AuthorizationUtils.checkAuthorization(sharedToUserId, securityContext.getUserPrincipal().getName());
-        List<FileSharingResponse> sharedFiles = fileSharingService.getFilesSharedToUser(sharedToUserId);
+        if (limit != null && limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("limit must be positive").build();
+        }
+        SharedFilesPage sharedFiles = fileSharingService.getFilesSharedToUser(sharedToUserId, afterId, limit == null ? pageSize : limit);
         LOGGER.info("HTTP 200 OK: Files shared to user with ID {} fetched successfully", sharedToUserId);
-        return Response.ok().entity(sharedFiles).build();
+        return page(sharedFiles);
     }
 
     @POST
+    @RunOnVirtualThread
     @Authenticated
     public Response shareFiles(
             @PathParam("id") @NotNull Long userId,
@@ -76,13 +95,14 @@ public class FileSharingResource {
         } else {
             Long recipientGroupId = shareRequest.recipientId;
             String filename = shareRequest.filename;
-            List<FileSharing> sharedFile = fileSharingService.shareFileToGroup(userId, recipientGroupId, filename);
+            GroupShareResult sharedFile = fileSharingService.shareFileToGroup(userId, recipientGroupId, filename);
             LOGGER.info("HTTP 201 Created: File '{}' shared successfully from user with ID: {} to group with ID: {}", filename, userId, recipientGroupId);
             return Response.ok(sharedFile).build();
         }
     }
 
     @DELETE
+    @RunOnVirtualThread
     @Authenticated
     public Response deleteFileShare(
             @PathParam("id") @NotNull Long userId,
@@ -98,6 +118,14 @@ public class FileSharingResource {
         return Response.ok().build();
     }
 
+    private static Response page(SharedFilesPage sharedFiles) {
+        Response.ResponseBuilder response = Response.ok().entity(sharedFiles.files());
+        if (sharedFiles.nextAfterId() != null) {
+            response.header(NEXT_AFTER_ID, sharedFiles.nextAfterId());
+        }
+        return response.build();
+    }
+
     public record ShareRequest(RecipientType recipientType, Long recipientId, String filename) {
 
         public enum RecipientType {
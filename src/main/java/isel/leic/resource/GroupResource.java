@@ -1,6 +1,7 @@
 package isel.leic.resource;
 
 import io.quarkus.security.Authenticated;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.smallrye.common.constraint.NotNull;
 import isel.leic.model.Group;
 import isel.leic.model.User;
@@ -27,6 +28,7 @@ public class GroupResource {
     GroupService groupService;
 
     @GET
+    @RunOnVirtualThread
     @Authenticated
     public Response getGroups(
             @PathParam("id") @NotNull Long id,
@@ -39,6 +41,7 @@ public class GroupResource {
     }
 
     @POST
+    @RunOnVirtualThread
     @Authenticated
     public Response createGroup(
             @PathParam("id") @NotNull Long id,
@@ -52,6 +55,7 @@ public class GroupResource {
     }
 
     @PUT
+    @RunOnVirtualThread
     @Authenticated
     @Path("/{groupId}/name")
     public Response updateGroupName(
@@ -68,6 +72,7 @@ public class GroupResource {
     }
 
     @DELETE
+    @RunOnVirtualThread
     @Authenticated
     @Path("/{groupId}")
     public Response deleteGroup(
@@ -82,6 +87,7 @@ public class GroupResource {
     }
 
     @POST
+    @RunOnVirtualThread
     @Authenticated
     @Path("/{groupId}")
     public Response addUserToGroup(
@@ -98,6 +104,7 @@ public class GroupResource {
     }
 
     @GET
+    @RunOnVirtualThread
     @Authenticated
     @Path("/{groupId}/member")
     public Response getGroupMembers(
@@ -113,6 +120,7 @@ public class GroupResource {
     }
 
     @DELETE
+    @RunOnVirtualThread
     @Authenticated
     @Path("/{groupId}/member/{memberId}")
     public Response removeMemberFromGroup(
@@ -1,22 +1,54 @@
 package isel.leic.resource;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.quarkus.security.Authenticated;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.smallrye.common.constraint.NotNull;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.core.http.HttpServerRequest;
+import isel.leic.exception.RangeNotSatisfiableException;
+import isel.leic.model.storage.ByteRange;
 import isel.leic.model.storage.FileObject;
 import isel.leic.model.storage.FormData;
 import isel.leic.model.storage.MultipartChunkForm;
+import isel.leic.model.storage.ObjectPage;
+import isel.leic.service.DownloadLimiter;
 import isel.leic.service.FileSharingService;
+import isel.leic.service.MinioAsyncService;
 import isel.leic.service.MinioService;
 import isel.leic.utils.AuthorizationUtils;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.*;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.jboss.resteasy.reactive.RestMulti;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Path("/user/{id}/object")
 public class MinioResource {
@@ -24,28 +56,101 @@ public class MinioResource {
     @Inject
     MinioService minioService;
     @Inject
+    MinioAsyncService minioAsyncService;
+    @Inject
     FileSharingService fileSharingService;
+    @Inject
+    DownloadLimiter downloadLimiter;
     @ConfigProperty(name = "user.bucket.suffix")
     String bucket_suffix;
 
+    @ConfigProperty(name = "minio.list.page-size", defaultValue = "1000")
+    int listPageSize;
+
+    @ConfigProperty(name = "minio.presign.batch-max-keys", defaultValue = "500")
+    int presignBatchMaxKeys;
+    @Inject
+    ObjectMapper objectMapper;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(MinioResource.class);
+    private static final String NDJSON = "application/x-ndjson";
+    public static final String NEXT_CONTINUATION_TOKEN = "X-Next-Continuation-Token";
 
     @GET
+    @RunOnVirtualThread
+    @Bulkhead(200)
     @Authenticated
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<FileObject> listFiles(
+    @Produces({MediaType.APPLICATION_JSON, NDJSON})
+    public Response listFiles(
             @PathParam("id") @NotNull Long id,
             @QueryParam("suffix") String suffix,
             @QueryParam("delimiter") String delimiter,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("continuationToken") String continuationToken,
+            @Context HttpHeaders headers,
             @Context SecurityContext securityContext
     ) {
         LOGGER.info("Received request to list files for user with ID: {}", id);
         authorize(id, securityContext);
         String bucketName = id + bucket_suffix;
-        return minioService.listObjects(bucketName, suffix,delimiter);
+
+        if (acceptsNdjson(headers)) {
+            // One generator for the whole listing; ObjectMapper.writeValue(OutputStream) would close the stream
+            // after the first object
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            StreamingOutput streamingOutput = output -> {
+                Iterator<List<FileObject>> pages = minioService.streamObjectPages(bucketName, suffix, delimiter).iterator();
+                try (JsonGenerator generator = objectMapper.createGenerator(output)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.setRootValueSeparator(null);
+                    while (pages.hasNext()) {
+                        for (FileObject object : pages.next()) {
+                            writer.writeValue(generator, object);
+                            generator.writeRaw('\n');
+                        }
+                        generator.flush();
+                    }
+                }
+            };
+            LOGGER.info("Streaming file listing for user with ID: {}", id);
+            return Response.ok(streamingOutput, NDJSON).build();
+        }
+
+        if (limit != null && limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("limit must be positive").build();
+        }
+        ObjectPage page;
+        try {
+            page = minioService.listObjectsPage(bucketName, suffix, delimiter,
+                    limit == null ? listPageSize : limit, continuationToken);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        Response.ResponseBuilder response = Response.ok(page.objects(), MediaType.APPLICATION_JSON);
+        if (page.nextContinuationToken() != null) {
+            response.header(NEXT_CONTINUATION_TOKEN, page.nextContinuationToken());
+        }
+        return response.build();
+    }
+
+    @GET
+    @Authenticated
+    @Path("/async")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<List<FileObject>> listFilesAsync(
+            @PathParam("id") @NotNull Long id,
+            @QueryParam("suffix") String suffix,
+            @QueryParam("delimiter") String delimiter,
+            @Context SecurityContext securityContext
+    ) {
+        LOGGER.info("Received async request to list files for user with ID: {}", id);
+        authorize(id, securityContext);
+        String bucketName = id + bucket_suffix;
+        return minioAsyncService.listObjects(bucketName, suffix, delimiter);
     }
 
     @DELETE
+    @RunOnVirtualThread
     @Authenticated
     public Response deleteFile(
             @PathParam("id") @NotNull Long userId,
@@ -72,6 +177,7 @@ public class MinioResource {
     }
 
     @PUT
+    @RunOnVirtualThread
     @Authenticated
     public Response renameFile(
             @PathParam("id") @NotNull Long userId,
@@ -96,6 +202,8 @@ public class MinioResource {
 
 
     @POST
+    @RunOnVirtualThread
+    @Bulkhead(200)
     @Authenticated
     @Path("/presign/upload")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -130,6 +238,8 @@ public class MinioResource {
 
 
     @POST
+    @RunOnVirtualThread
+    @Bulkhead(200)
     @Path("/presign/download")
     @Authenticated
     @Consumes(MediaType.APPLICATION_JSON)
@@ -140,33 +250,71 @@ public class MinioResource {
             @Context SecurityContext securityContext
     ) {
         LOGGER.info("Received request to download file '{}' for user with ID: {}", downloadRequest.objectKey(), id);
+        if (!canAccessObject(id, downloadRequest.objectKey(), securityContext)) {
+            String errorMessage = String.format("User '%s' is not authorized to access this resource", id);
+            LOGGER.error(errorMessage);
+            return Response.status(Response.Status.FORBIDDEN).entity(errorMessage).build();
+        }
         try {
-            authorize(id, securityContext);
-
-            String userId = getUserId(securityContext);
             String bucketName = id + bucket_suffix;
 
-            if (fileSharingService.isFileSharedWithUser(id, Long.valueOf(userId), downloadRequest.objectKey())) {
-                String errorMessage = String.format("User '%s' is not authorized to access this resource", id);
-                LOGGER.error(errorMessage);
-                return Response.status(Response.Status.FORBIDDEN).entity(errorMessage).build();
-            } else {
-                LOGGER.info("User '{}' is accessing file '{}' shared by user '{}'", userId, downloadRequest.objectKey(), id);
-            }
-
             URL presignedUrl = minioService.generatePresignedDownloadUrl(bucketName, downloadRequest.objectKey());
             return Response.ok(new PresignResponse(presignedUrl.toString())).build();
-        } catch (ForbiddenException e) {
-            String errorMessage = String.format("User '%s' is not authorized to access this resource", id);
-            LOGGER.error(errorMessage);
-            return Response.status(Response.Status.FORBIDDEN).entity(errorMessage).build();
         } catch (Exception e) {
             LOGGER.error("Error occurred while processing download request for file '{}' for user with ID: {}", downloadRequest.objectKey(), id, e);
             return Response.serverError().entity("Error occurred while processing download request").build();
         }
     }
 
+    /**
+     * Presigns downloads of several objects in one call. Keys the caller may not access are listed as denied
+     * instead of failing the whole batch.
+     */
+    @POST
+    @RunOnVirtualThread
+    @Bulkhead(200)
+    @Path("/presign/download/batch")
+    @Authenticated
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response downloadFilesPresign(
+            @NotNull BatchDownloadRequest downloadRequest,
+            @PathParam("id") @NotNull Long id,
+            @Context SecurityContext securityContext
+    ) {
+        List<String> objectKeys = downloadRequest.objectKeys();
+        if (objectKeys == null || objectKeys.isEmpty() || objectKeys.size() > presignBatchMaxKeys) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("objectKeys must hold between 1 and " + presignBatchMaxKeys + " keys")
+                    .build();
+        }
+        LOGGER.info("Received request to presign {} downloads for user with ID: {}", objectKeys.size(), id);
+
+        List<String> allowed = new ArrayList<>(objectKeys.size());
+        List<String> denied = new ArrayList<>();
+        String userId = getUserId(securityContext);
+        if (AuthorizationUtils.isAuthorized(id, userId)) {
+            allowed.addAll(objectKeys);
+        } else {
+            // one share query for the whole batch instead of a permission check per key
+            Set<String> shared = fileSharingService.findFilesSharedWithUser(id, Long.valueOf(userId), new HashSet<>(objectKeys));
+            for (String objectKey : objectKeys) {
+                (shared.contains(objectKey) ? allowed : denied).add(objectKey);
+            }
+        }
+        if (!denied.isEmpty()) {
+            LOGGER.warn("User '{}' is not authorized to access {} of the requested files of user {}",
+                    userId, denied.size(), id);
+        }
+
+        Map<String, String> presignedUrls = new LinkedHashMap<>();
+        minioService.generatePresignedDownloadUrls(id + bucket_suffix, allowed)
+                .forEach((objectKey, url) -> presignedUrls.put(objectKey, url.toString()));
+        return Response.ok(new BatchPresignResponse(presignedUrls, denied)).build();
+    }
+
     @POST
+    @RunOnVirtualThread
     @Authenticated
     @Path("/folder")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -195,6 +343,8 @@ public class MinioResource {
         }
     }
     @POST
+    @RunOnVirtualThread
+    @Bulkhead(32)
     @Authenticated
     @Consumes(MediaType.MULTIPART_FORM_DATA)
     public Response uploadFile(
@@ -220,51 +370,93 @@ public class MinioResource {
             return Response.serverError().entity("Error occurred while uploading file").build();
         }
     }
+    @POST
+    @RunOnVirtualThread
+    @Bulkhead(32)
+    @Authenticated
+    @Path("/stream")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    public Response uploadFileAsStream(
+            InputStream data,
+            @PathParam("id") @NotNull Long id,
+            @QueryParam("filename") @NotNull String filename,
+            @QueryParam("mimetype") String mimetype,
+            @HeaderParam(HttpHeaders.CONTENT_LENGTH) Long contentLength,
+            @Context SecurityContext securityContext
+    ) {
+        LOGGER.info("Received request to stream upload file '{}' for user with ID: {}", filename, id);
+        try {
+            authorize(id, securityContext);
+            String userId = getUserId(securityContext);
+            String bucketName = userId + bucket_suffix;
+            String response = minioService.uploadObjectAsStream(bucketName, filename, mimetype, data, contentLength);
+            if (response.startsWith("Object uploaded successfully")) {
+                LOGGER.info("File '{}' streamed successfully for user with ID: {}", filename, id);
+                return Response.ok().status(Response.Status.CREATED).build();
+            } else {
+                LOGGER.error("Error streaming file '{}' for user with ID: {}. Error: {}", filename, id, response);
+                return Response.serverError().entity(response).build();
+            }
+        } catch (ForbiddenException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Error occurred while streaming file '{}' for user with ID: {}", filename, id, e);
+            return Response.serverError().entity("Error occurred while uploading file").build();
+        }
+    }
 
 
-@GET
-@Authenticated
-@Path("/download")
-@Produces(MediaType.APPLICATION_OCTET_STREAM)
-public Response downloadFile(
-        @PathParam("id") @NotNull Long id,
-        @QueryParam("objectKey") @NotNull String objectKey,
-        @Context SecurityContext securityContext
-) {
-    LOGGER.info("Received request to download file '{}' for user with ID: {}", objectKey, id);
+    @GET
+    @RunOnVirtualThread
+    @Authenticated
+    @Path("/download")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response downloadFile(
+            @PathParam("id") @NotNull Long id,
+            @QueryParam("objectKey") @NotNull String objectKey,
+            @HeaderParam("Range") String rangeHeader,
+            @HeaderParam("If-Range") String ifRange,
+            @Context SecurityContext securityContext
+    ) {
+        LOGGER.info("Received request to download file '{}' for user with ID: {}", objectKey, id);
 
-    try {
-        authorize(id, securityContext);
-    } catch (ForbiddenException e) {
-        String userId = getUserId(securityContext);
-        if (fileSharingService.isFileSharedWithUser(id, Long.valueOf(userId), objectKey)) {
+        if (!canAccessObject(id, objectKey, securityContext)) {
             String errorMessage = String.format("User '%s' is not authorized to access this resource", id);
             LOGGER.error(errorMessage);
             return Response.status(Response.Status.FORBIDDEN).entity(errorMessage).build();
-        } else {
-            LOGGER.info("User '{}' is accessing file '{}' shared by user '{}'", userId, objectKey, id);
         }
-    }
 
-    String bucketName = id + bucket_suffix;
-    try {
-        byte[] objectBytes = minioService.downloadObject(bucketName, objectKey);
-        if (objectBytes != null && objectBytes.length > 0) {
-            LOGGER.info("File '{}' downloaded successfully for user with ID: {}", objectKey, id);
-            return Response.ok(objectBytes)
-                    .header("Content-Length", String.valueOf(objectBytes.length))
+        String bucketName = id + bucket_suffix;
+        try (DownloadLimiter.Permit permit = downloadLimiter.acquire()) {
+            HeadObjectResponse head = minioService.statObject(bucketName, objectKey);
+            long size = head.contentLength();
+            ByteRange range = ifRangeMatches(ifRange, head) ? ByteRange.parse(rangeHeader, size) : null;
+
+            StreamingOutput streamingOutput = permit.guard(minioService.downloadObjectRange(bucketName, objectKey, range, head.eTag()));
+            Response.ResponseBuilder response = range == null
+                    ? Response.ok(streamingOutput).header(HttpHeaders.CONTENT_LENGTH, size)
+                    : Response.status(Response.Status.PARTIAL_CONTENT).entity(streamingOutput)
+                        .header(HttpHeaders.CONTENT_LENGTH, range.length())
+                        .header("Content-Range", range.toContentRange(size));
+            LOGGER.info("Streaming file '{}' for user with ID: {}", objectKey, id);
+            return response
+                    .header("Accept-Ranges", "bytes")
+                    .header(HttpHeaders.ETAG, head.eTag())
+                    .header(HttpHeaders.LAST_MODIFIED, Date.from(head.lastModified()))
                     .build();
-        } else {
+        } catch (NoSuchKeyException e) {
             LOGGER.error("File '{}' not found for user with ID: {}", objectKey, id);
             return Response.status(Response.Status.NOT_FOUND).entity("File not found").build();
+        } catch (RangeNotSatisfiableException | BulkheadException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.error("Error occurred while downloading file '{}' for user with ID: {}", objectKey, id, e);
+            return Response.serverError().entity("Error occurred while downloading file").build();
         }
-    } catch (Exception e) {
-        LOGGER.error("Error occurred while downloading file '{}' for user with ID: {}", objectKey, id, e);
-        return Response.serverError().entity("Error occurred while downloading file").build();
     }
-}
 
     @GET
+    @RunOnVirtualThread
     @Authenticated
     @Path("/download/stream")
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
@@ -275,31 +467,29 @@ public Response downloadFile(
     ) {
         LOGGER.info("Received request to download file '{}' for user with ID: {}", objectKey, id);
 
-        try {
-            authorize(id, securityContext);
-        } catch (ForbiddenException e) {
-            String userId = getUserId(securityContext);
-            if (fileSharingService.isFileSharedWithUser(id, Long.valueOf(userId), objectKey)) {
-                String errorMessage = String.format("User '%s' is not authorized to access this resource", id);
-                LOGGER.error(errorMessage);
-                return Response.status(Response.Status.FORBIDDEN).entity(errorMessage).build();
-            } else {
-                LOGGER.info("User '{}' is accessing file '{}' shared by user '{}'", userId, objectKey, id);
-            }
+        if (!canAccessObject(id, objectKey, securityContext)) {
+            String errorMessage = String.format("User '%s' is not authorized to access this resource", id);
+            LOGGER.error(errorMessage);
+            return Response.status(Response.Status.FORBIDDEN).entity(errorMessage).build();
         }
 
         String bucketName = id + bucket_suffix;
-        try {
+        try (DownloadLimiter.Permit permit = downloadLimiter.acquire()) {
             StreamingOutput streamingOutput = minioService.downloadObjectAsStream(bucketName, objectKey);
             if (streamingOutput != null) {
                 LOGGER.info("File '{}' downloaded successfully for user with ID: {}", objectKey, id);
-                return Response.ok(streamingOutput)
+                return Response.ok(permit.guard(streamingOutput))
                         .header("Content-Disposition", "attachment; filename=\"" + objectKey + "\"")
                         .build();
             } else {
                 LOGGER.error("File '{}' not found for user with ID: {}", objectKey, id);
                 return Response.status(Response.Status.NOT_FOUND).entity("File not found").build();
             }
+        } catch (NoSuchKeyException e) {
+            LOGGER.error("File '{}' not found for user with ID: {}", objectKey, id);
+            return Response.status(Response.Status.NOT_FOUND).entity("File not found").build();
+        } catch (BulkheadException e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.error("Error occurred while downloading file '{}' for user with ID: {}", objectKey, id, e);
             return Response.serverError().entity("Error occurred while downloading file").build();
@@ -308,6 +498,55 @@ public Response downloadFile(
 
     @POST
     @Authenticated
+    @Path("/async")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    public Uni<Response> uploadFileAsync(
+            @PathParam("id") @NotNull Long id,
+            @QueryParam("filename") @NotNull String filename,
+            @QueryParam("mimetype") String mimetype,
+            @HeaderParam(HttpHeaders.CONTENT_LENGTH) Long contentLength,
+            @Context HttpServerRequest request,
+            @Context SecurityContext securityContext
+    ) {
+        LOGGER.info("Received async request to upload file '{}' for user with ID: {}", filename, id);
+        authorize(id, securityContext);
+        if (contentLength == null) {
+            LOGGER.error("Async upload of '{}' rejected: no Content-Length", filename);
+            return Uni.createFrom().item(Response.status(Response.Status.LENGTH_REQUIRED).entity("Content-Length is required").build());
+        }
+        String bucketName = getUserId(securityContext) + bucket_suffix;
+        Multi<ByteBuffer> body = io.vertx.mutiny.core.http.HttpServerRequest.newInstance(request).toMulti()
+                .map(buffer -> ByteBuffer.wrap(buffer.getBytes()));
+        return minioAsyncService.uploadObject(bucketName, filename, mimetype, contentLength, body)
+                .map(response -> {
+                    LOGGER.info("File '{}' uploaded successfully for user with ID: {}", filename, id);
+                    return Response.status(Response.Status.CREATED).build();
+                });
+    }
+
+    @GET
+    @Authenticated
+    @Path("/async/download")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public RestMulti<byte[]> downloadFileAsync(
+            @PathParam("id") @NotNull Long id,
+            @QueryParam("objectKey") @NotNull String objectKey,
+            @Context SecurityContext securityContext
+    ) {
+        LOGGER.info("Received async request to download file '{}' for user with ID: {}", objectKey, id);
+        String bucketName = id + bucket_suffix;
+        Uni<MinioAsyncService.ObjectContent> object = authorizeObjectAccess(id, objectKey, securityContext)
+                .chain(() -> minioAsyncService.downloadObject(bucketName, objectKey));
+        return RestMulti.fromUniResponse(object,
+                MinioAsyncService.ObjectContent::content,
+                content -> Map.of(
+                        HttpHeaders.CONTENT_LENGTH, List.of(String.valueOf(content.response().contentLength())),
+                        "Content-Disposition", List.of("attachment; filename=\"" + objectKey + "\"")));
+    }
+
+    @POST
+    @RunOnVirtualThread
+    @Authenticated
     @Path("/multipart/start")
     @Produces(MediaType.APPLICATION_JSON)
     public Response startMultipartUpload(
@@ -330,6 +569,7 @@ public Response downloadFile(
     }
 
     @POST
+    @RunOnVirtualThread
     @Authenticated
     @Path("/multipart/upload")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
@@ -355,6 +595,7 @@ public Response downloadFile(
     }
 
     @POST
+    @RunOnVirtualThread
     @Authenticated
     @Path("/multipart/complete")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -379,6 +620,7 @@ public Response downloadFile(
 
 
     @POST
+    @RunOnVirtualThread
     @Authenticated
     @Path("/multipart/abort")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -410,10 +652,46 @@ public Response downloadFile(
     public record DownloadRequest(String objectKey) {}
 
     public record PresignResponse(String presignedUrl) {}
+
+    public record BatchDownloadRequest(List<String> objectKeys) {}
+
+    public record BatchPresignResponse(Map<String, String> presignedUrls, List<String> denied) {}
     private void authorize(Long userId, SecurityContext securityContext) {
         AuthorizationUtils.checkAuthorization(userId, securityContext.getUserPrincipal().getName());
     }
 
+    /**
+     * Whether the caller owns the object or it is shared with them. Owners are told apart without exceptions and
+     * share lookups are answered from the permission cache, so repeated downloads of a shared file stay cheap.
+     */
+    private boolean canAccessObject(Long ownerId, String objectKey, SecurityContext securityContext) {
+        String userId = getUserId(securityContext);
+        if (AuthorizationUtils.isAuthorized(ownerId, userId)) {
+            return true;
+        }
+        boolean shared = !fileSharingService.isFileSharedWithUser(ownerId, Long.valueOf(userId), objectKey);
+        if (shared) {
+            LOGGER.debug("User '{}' is accessing file '{}' shared by user '{}'", userId, objectKey, ownerId);
+        }
+        return shared;
+    }
+
+    /**
+     * Non-blocking counterpart of the owner-or-shared check; the share lookup runs on a worker thread.
+     */
+    private Uni<Void> authorizeObjectAccess(Long ownerId, String objectKey, SecurityContext securityContext) {
+        String userId = getUserId(securityContext);
+        if (AuthorizationUtils.isAuthorized(ownerId, userId)) {
+            return Uni.createFrom().voidItem();
+        }
+        return Uni.createFrom().item(() -> fileSharingService.isFileSharedWithUser(ownerId, Long.valueOf(userId), objectKey))
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                .chain(notShared -> notShared
+                        ? Uni.createFrom().failure(() -> new ForbiddenException(
+                                String.format("User '%s' is not authorized to access this resource", userId)))
+                        : Uni.createFrom().voidItem());
+    }
+
     public record MultipartUploadResponse(String uploadId) {}
 
     public record PartUploadResponse(int partNumber, String eTag) {}
@@ -423,6 +701,37 @@ public Response downloadFile(
 
     public record CancelMultipartUploadRequest(String uploadId, String filename) {}
 
+    /**
+     * A range is only honoured when If-Range is absent or still names the current representation;
+     * weak validators never match, as required for range requests.
+     */
+    private boolean ifRangeMatches(String ifRange, HeadObjectResponse head) {
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(head.eTag());
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            Instant since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return head.lastModified() != null && head.lastModified().getEpochSecond() == since.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Streaming is opt-in: wildcard Accept headers, as sent by most clients, get the paged JSON array.
+     */
+    private static boolean acceptsNdjson(HttpHeaders headers) {
+        return headers.getAcceptableMediaTypes().stream()
+                .anyMatch(type -> !type.isWildcardType() && !type.isWildcardSubtype()
+                        && type.isCompatible(MediaType.valueOf(NDJSON)));
+    }
+
     private String getUserId(SecurityContext securityContext) {
         return securityContext.getUserPrincipal().getName();
    }
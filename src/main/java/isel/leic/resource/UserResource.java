@@ -1,9 +1,13 @@
 package isel.leic.resource;
 
 import io.quarkus.security.Authenticated;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import io.smallrye.common.constraint.NotNull;
+import isel.leic.model.AccountDeletionJob;
 import isel.leic.model.User;
-import isel.leic.service.MinioService;
+import isel.leic.model.UserPage;
+import isel.leic.model.UserSummary;
+import isel.leic.service.AccountDeletionService;
 import isel.leic.service.UserService;
 import isel.leic.utils.AuthorizationUtils;
 import jakarta.inject.Inject;
@@ -16,10 +20,8 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.net.URI;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 
 @Path("/user")
 @Produces(MediaType.APPLICATION_JSON)
@@ -29,22 +31,38 @@ public class UserResource {
     @Inject
     UserService userService;
     @Inject
-    MinioService minioService;
+    AccountDeletionService accountDeletionService;
 
-    @ConfigProperty(name = "user.bucket.suffix")
-    String bucket_suffix;
+    @ConfigProperty(name = "user.page-size", defaultValue = "500")
+    int pageSize;
+
+    @ConfigProperty(name = "user.max-page-size", defaultValue = "1000")
+    int maxPageSize;
+
+    // typeahead only shows the best few matches
+    @ConfigProperty(name = "user.search.limit", defaultValue = "10")
+    int searchLimit;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserResource.class);
 
     @GET
+    @RunOnVirtualThread
     @Authenticated
-    public Response getUsers() {
-        LOGGER.info("Received get request for all users");
-        List<User> users = userService.findAll();
-        LOGGER.info("HTTP 200 OK: Fetched {} users", users.size());
-        return Response.ok(users).build();
+    public Response getUsers(@QueryParam("afterId") Long afterId, @QueryParam("limit") Integer limit) {
+        LOGGER.info("Received get request for users after id: {}", afterId);
+        if (limit != null && limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("limit must be positive").build();
+        }
+        UserPage page = userService.findPage(afterId, limit == null ? pageSize : Math.min(limit, maxPageSize));
+        LOGGER.info("HTTP 200 OK: Fetched {} users", page.users().size());
+        Response.ResponseBuilder response = Response.ok(page.users());
+        if (page.nextAfterId() != null) {
+            response.header(FileSharingResource.NEXT_AFTER_ID, page.nextAfterId());
+        }
+        return response.build();
     }
     @GET
+    @RunOnVirtualThread
     @Path("/{id}")
     @Authenticated
     public Response getUserById(@PathParam("id") @NotNull Long id) {
@@ -58,6 +76,7 @@ public class UserResource {
         return Response.ok(user).build();
     }
     @PUT
+    @RunOnVirtualThread
     @Authenticated
     @Path("/{id}")
     public Response updateUserPassword(
@@ -72,20 +91,21 @@ public class UserResource {
         return Response.ok().entity(updatedUser).build();
     }
     @GET
+    @RunOnVirtualThread
     @Path("/search")
     @Authenticated
-    public Response searchUsers(@QueryParam("prefix") @NotNull String prefix) {
-        LOGGER.info("Received search request for users with prefix: {}", prefix);
-        Optional<List<User>> optionalUsers = userService.findByUsernamePrefix(prefix);
-        List<User> users = Collections.emptyList();
-        if (optionalUsers.isPresent()) {
-            users = optionalUsers.get();
+    public Response searchUsers(@QueryParam("prefix") @NotNull String prefix, @QueryParam("limit") Integer limit) {
+        LOGGER.debug("Received search request for users with prefix: {}", prefix);
+        if (limit != null && limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("limit must be positive").build();
         }
-        LOGGER.info("HTTP 200 OK: Found {} users with prefix: {}", users.size(), prefix);
+        List<UserSummary> users = userService.findByUsernamePrefix(prefix, limit == null ? searchLimit : Math.min(limit, maxPageSize));
+        LOGGER.debug("HTTP 200 OK: Found {} users with prefix: {}", users.size(), prefix);
         return Response.ok(users).build();
     }
 
     @DELETE
+    @RunOnVirtualThread
     @Authenticated
     @Path("/{id}")
     public Response deleteUser(
@@ -94,17 +114,26 @@ public class UserResource {
     ) {
         LOGGER.info("Received delete request for user: {}", id);
         AuthorizationUtils.checkAuthorization(id, securityContext.getUserPrincipal().getName());
-        userService.removeUser(id);
+        AccountDeletionJob job = accountDeletionService.scheduleDeletion(id);
+        LOGGER.info("HTTP 202 Accepted: User {} deleted, bucket cleanup scheduled as job {}", id, job.getId());
+        return Response.accepted(job)
+                .location(URI.create("/user/" + id + "/deletion"))
+                .build();
+    }
 
-        String bucketName = id + bucket_suffix;
-        String deleteBucketResult = minioService.deleteBucket(bucketName);
-        if (deleteBucketResult.startsWith("Bucket deleted successfully")) {
-            LOGGER.info("HTTP 200 OK: User {} deleted successfully.", id);
-            return Response.ok().build();
-        } else {
-            LOGGER.error("Error deleting bucket for user {}: {}", id, deleteBucketResult);
-            return Response.serverError().entity(deleteBucketResult).build();
-        }
+    @GET
+    @RunOnVirtualThread
+    @Authenticated
+    @Path("/{id}/deletion")
+    public Response getDeletionStatus(
+            @PathParam("id") @NotNull Long id,
+            @Context SecurityContext securityContext
+    ) {
+        LOGGER.info("Received deletion status request for user: {}", id);
+        AuthorizationUtils.checkAuthorization(id, securityContext.getUserPrincipal().getName());
+        AccountDeletionJob job = accountDeletionService.getDeletionStatus(id);
+        LOGGER.info("HTTP 200 OK: Deletion job {} of user {} is {}", job.getId(), id, job.getStatus());
+        return Response.ok(job).build();
     }
 
 
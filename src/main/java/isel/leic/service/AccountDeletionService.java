@@ -0,0 +1,137 @@
+package isel.leic.service;
+
+import io.quarkus.scheduler.Scheduled;
+import isel.leic.exception.UserNotFoundException;
+import isel.leic.model.AccountDeletionJob;
+import isel.leic.repository.AccountDeletionJobRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Deletes accounts in two steps: the user row is removed and a job is persisted within the request,
+ * then a scheduled worker drains and deletes the bucket. Jobs are leased, so a job whose pod died
+ * is resumed by any other pod once its lease expires.
+ */
+@ApplicationScoped
+public class AccountDeletionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountDeletionService.class);
+
+    @Inject
+    AccountDeletionJobRepository jobRepository;
+
+    @Inject
+    UserService userService;
+
+    @Inject
+    MinioService minioService;
+
+    @ConfigProperty(name = "user.bucket.suffix")
+    String bucket_suffix;
+
+    @ConfigProperty(name = "user.deletion.lease", defaultValue = "5M")
+    Duration lease;
+
+    @ConfigProperty(name = "user.deletion.max-attempts", defaultValue = "5")
+    int maxAttempts;
+
+    @ConfigProperty(name = "user.deletion.retry-backoff", defaultValue = "30S")
+    Duration retryBackoff;
+
+    @ConfigProperty(name = "user.deletion.max-retry-backoff", defaultValue = "30M")
+    Duration maxRetryBackoff;
+
+    @Transactional
+    public AccountDeletionJob scheduleDeletion(Long userId) {
+        LOGGER.info("Scheduling deletion of account: {}", userId);
+        userService.removeUser(userId);
+
+        AccountDeletionJob job = new AccountDeletionJob(userId, userId + bucket_suffix);
+        jobRepository.persist(job);
+        LOGGER.info("Deletion job {} scheduled for account: {}", job.getId(), userId);
+        return job;
+    }
+
+    public AccountDeletionJob getDeletionStatus(Long userId) {
+        return jobRepository.findLatestByUserId(userId)
+                .orElseThrow(() -> new UserNotFoundException("No deletion job found for user with ID " + userId));
+    }
+
+    /**
+     * Runs runnable jobs one after the other until none is left or one fails.
+     */
+    @Scheduled(every = "${user.deletion.poll-interval:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void processPendingJobs() {
+        Optional<AccountDeletionJob> job;
+        // A failure usually means storage is unhealthy; leave the remaining jobs for the next poll
+        while ((job = claimNextJob()).isPresent()) {
+            if (!run(job.get())) {
+                return;
+            }
+        }
+    }
+
+    @Transactional
+    Optional<AccountDeletionJob> claimNextJob() {
+        Optional<AccountDeletionJob> next = jobRepository.lockNextRunnable(Instant.now());
+        next.ifPresent(job -> {
+            job.setStatus(AccountDeletionJob.Status.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLeaseUntil(Instant.now().plus(lease));
+        });
+        return next;
+    }
+
+    private boolean run(AccountDeletionJob job) {
+        LOGGER.info("Running deletion job {} for bucket: {} (attempt {})", job.getId(), job.getBucketName(), job.getAttempts());
+        long alreadyDeleted = job.getObjectsDeleted();
+        try {
+            minioService.deleteBucket(job.getBucketName(), deleted -> recordProgress(job.getId(), alreadyDeleted + deleted));
+        } catch (NoSuchBucketException e) {
+            LOGGER.info("Bucket {} of deletion job {} is already gone", job.getBucketName(), job.getId());
+        } catch (RuntimeException e) {
+            LOGGER.error("Deletion job {} failed on attempt {}", job.getId(), job.getAttempts(), e);
+            if (job.getAttempts() >= maxAttempts) {
+                finish(job.getId(), AccountDeletionJob.Status.FAILED, e.getMessage(), null);
+            } else {
+                Duration backoff = backoff(job.getAttempts());
+                LOGGER.info("Deletion job {} will be retried in {}", job.getId(), backoff);
+                finish(job.getId(), AccountDeletionJob.Status.PENDING, e.getMessage(), Instant.now().plus(backoff));
+            }
+            return false;
+        }
+        finish(job.getId(), AccountDeletionJob.Status.COMPLETED, null, null);
+        LOGGER.info("Deletion job {} completed", job.getId());
+        return true;
+    }
+
+    // Doubles with every failed attempt: retry-backoff, 2 x retry-backoff, ... up to max-retry-backoff
+    Duration backoff(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration backoff = retryBackoff.multipliedBy(1L << doublings);
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    @Transactional
+    void recordProgress(Long jobId, long objectsDeleted) {
+        jobRepository.updateProgress(jobId, objectsDeleted, Instant.now().plus(lease));
+    }
+
+    @Transactional
+    void finish(Long jobId, AccountDeletionJob.Status status, String error, Instant notBefore) {
+        AccountDeletionJob job = jobRepository.findById(jobId);
+        job.setStatus(status);
+        job.setLastError(error);
+        // A pending job is not claimed again before its lease passes, which is how a retry waits out its backoff
+        job.setLeaseUntil(notBefore);
+    }
+}
@@ -0,0 +1,126 @@
+package isel.leic.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Empties buckets with paginated ListObjectsV2 calls and DeleteObjects batches of up to 1000 keys,
+ * running up to {@code minio.delete.concurrency} batches at once.
+ */
+@ApplicationScoped
+public class BatchObjectDeleter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchObjectDeleter.class);
+    private static final int MAX_KEYS_PER_BATCH = 1000;
+
+    @Inject
+    S3Client minioClient;
+
+    @ConfigProperty(name = "minio.delete.concurrency", defaultValue = "4")
+    int concurrency;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Deletes every object in the bucket and reports the running total of deleted keys after each batch.
+     *
+     * @return the number of deleted objects
+     */
+    public long deleteAllObjects(String bucketName, LongConsumer progress) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .maxKeys(MAX_KEYS_PER_BATCH)
+                .build();
+
+        Semaphore slots = new Semaphore(concurrency);
+        AtomicLong deleted = new AtomicLong();
+        List<Future<?>> batches = new ArrayList<>();
+        try {
+            for (ListObjectsV2Response page : minioClient.listObjectsV2Paginator(request)) {
+                if (page.contents().isEmpty()) {
+                    continue;
+                }
+                List<ObjectIdentifier> keys = page.contents().stream()
+                        .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                        .toList();
+                slots.acquire();
+                batches.add(executor.submit(() -> {
+                    try {
+                        deleteBatch(bucketName, keys);
+                        progress.accept(deleted.addAndGet(keys.size()));
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batches.forEach(batch -> batch.cancel(true));
+            throw new RuntimeException("Interrupted while emptying bucket " + bucketName, e);
+        } catch (ExecutionException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            throw new RuntimeException("Failed to empty bucket " + bucketName, e.getCause());
+        }
+        LOGGER.info("Deleted {} objects from bucket: {}", deleted.get(), bucketName);
+        return deleted.get();
+    }
+
+    /**
+     * Aborts multipart uploads that were started but never completed, which would otherwise keep the bucket non-empty.
+     *
+     * @return the number of aborted uploads
+     */
+    public int abortMultipartUploads(String bucketName) {
+        ListMultipartUploadsRequest request = ListMultipartUploadsRequest.builder()
+                .bucket(bucketName)
+                .build();
+        int aborted = 0;
+        for (ListMultipartUploadsResponse page : minioClient.listMultipartUploadsPaginator(request)) {
+            for (MultipartUpload upload : page.uploads()) {
+                minioClient.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(upload.key())
+                        .uploadId(upload.uploadId())
+                        .build());
+                aborted++;
+            }
+        }
+        if (aborted > 0) {
+            LOGGER.info("Aborted {} dangling multipart uploads in bucket: {}", aborted, bucketName);
+        }
+        return aborted;
+    }
+
+    private void deleteBatch(String bucketName, List<ObjectIdentifier> keys) {
+        DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                .bucket(bucketName)
+                .delete(Delete.builder().objects(keys).quiet(true).build())
+                .build();
+        DeleteObjectsResponse response = minioClient.deleteObjects(request);
+        if (response.hasErrors() && !response.errors().isEmpty()) {
+            S3Error error = response.errors().get(0);
+            throw new RuntimeException("Failed to delete " + response.errors().size() + " objects from bucket "
+                    + bucketName + ", first error on '" + error.key() + "': " + error.message());
+        }
+    }
+}
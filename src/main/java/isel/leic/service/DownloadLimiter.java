@@ -0,0 +1,72 @@
+package isel.leic.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds the number of proxied downloads in progress. A download endpoint only builds a {@link StreamingOutput};
+ * the transfer runs after it returns, so a method-level bulkhead would not count it. Here a permit is taken when
+ * the request is accepted and released once the body has been written.
+ */
+@ApplicationScoped
+public class DownloadLimiter {
+
+    @ConfigProperty(name = "minio.download.max-concurrent", defaultValue = "64")
+    int maxConcurrent;
+
+    private Semaphore slots;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Takes a download slot, or fails at once with a {@link BulkheadException} when all are in use.
+     */
+    public Permit acquire() {
+        if (!slots.tryAcquire()) {
+            throw new BulkheadException("Too many concurrent downloads");
+        }
+        return new Permit();
+    }
+
+    /**
+     * A download slot. Closing it releases the slot unless it was handed to a body with {@link #guard}, in which
+     * case writing the body releases it.
+     */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private boolean handedOver;
+
+        public StreamingOutput guard(StreamingOutput body) {
+            handedOver = true;
+            return output -> {
+                try {
+                    body.write(output);
+                } finally {
+                    release();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (!handedOver) {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+}
@@ -1,44 +1,75 @@
 package isel.leic.service;
 
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CacheResult;
+import io.quarkus.cache.CompositeCacheKey;
 import isel.leic.exception.*;
 import isel.leic.model.FileSharing;
 import isel.leic.model.FileSharingResponse;
 import isel.leic.model.Group;
+import isel.leic.model.GroupShareResult;
+import isel.leic.model.SharedFilesPage;
 import isel.leic.model.User;
 import isel.leic.model.storage.FileObject;
 import isel.leic.repository.FileSharingRepository;
+import isel.leic.repository.GroupMemberRepository;
 import isel.leic.repository.GroupRepository;
 import isel.leic.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.*;
 
 @ApplicationScoped
 public class FileSharingService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileSharingService.class);
+    public static final String PERMISSION_CACHE = "share-permissions";
 
     @Inject
     FileSharingRepository fileSharingRepository;
     @Inject
     UserRepository userRepository;
     @Inject
-    S3Client minioClient;
+    MinioService minioService;
 
     @Inject
     GroupRepository groupRepository;
 
+    @Inject
+    GroupMemberRepository groupMemberRepository;
+
+    @ConfigProperty(name = "user.bucket.suffix")
+    String bucket_suffix;
+
+    @ConfigProperty(name = "minio.list.owner-concurrency", defaultValue = "8")
+    int ownerConcurrency;
+
+    @Inject
+    @CacheName(PERMISSION_CACHE)
+    Cache permissionCache;
+
+    @Inject
+    Event<SharesChanged> sharesChanged;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
     @Transactional
     public FileSharing shareFileToUser(Long sharedByUsername, Long sharedToUsername, String filename) {
         LOGGER.info("Sharing file '{}' from user with ID: {} to user with ID: {}", filename, sharedByUsername, sharedToUsername);
@@ -62,12 +93,17 @@ public class FileSharingService {
 
         FileSharing fileSharing = new FileSharing(sharedByUsername, sharedToUsername,  filename);
         fileSharingRepository.persist(fileSharing);
+        sharesChanged.fire(new SharesChanged(sharedByUsername));
         LOGGER.info("File '{}' shared successfully from user {} to user {}", filename, sharedByUsername, sharedToUsername);
         return fileSharing;
     }
 
+    /**
+     * Shares the file with the group as a single share. Members are resolved when the share is read or
+     * checked, so members who join later get access too and members who leave lose it.
+     */
     @Transactional
-    public List<FileSharing> shareFileToGroup(Long sharedByUserId, Long sharedToGroupId, String filename) {
+    public GroupShareResult shareFileToGroup(Long sharedByUserId, Long sharedToGroupId, String filename) {
         LOGGER.info("Sharing file {} from user {} to group {}", filename, sharedByUserId, sharedToGroupId);
 
         Group sharedToGroup = groupRepository.findById(sharedToGroupId);
@@ -76,22 +112,20 @@ public class FileSharingService {
             throw new GroupNotFoundException("Group with ID: " + sharedToGroupId + " not found");
         }
 
-        Optional<List<User>> groupUsersOptional = userRepository.findUsersByGroupId(sharedToGroupId);
-        if (groupUsersOptional.isEmpty()) {
+        int[] counts = fileSharingRepository.shareToGroup(sharedByUserId, sharedToGroupId, filename);
+        if (counts[0] == 0) {
             LOGGER.error("Group with ID: {} has no members", sharedToGroupId);
             throw new MembersNotFoundException("Group with ID: " + sharedToGroupId + " has no members");
         }
 
-        List<User> usersInGroup = groupUsersOptional.get();
-        List<FileSharing> fileSharings = new ArrayList<>();
-        for (User user : usersInGroup) {
-            FileSharing fileSharing = new FileSharing(sharedByUserId, user.getId(), filename);
-            fileSharings.add(fileSharing);
+        boolean created = counts[1] > 0;
+        if (created) {
+            sharesChanged.fire(new SharesChanged(sharedByUserId));
+            LOGGER.info("File '{}' shared successfully from user {} to group {} of {} members", filename, sharedByUserId, sharedToGroupId, counts[0]);
+        } else {
+            LOGGER.info("File '{}' was already shared from user {} to group {}", filename, sharedByUserId, sharedToGroupId);
         }
-
-        fileSharingRepository.persist(fileSharings);
-        LOGGER.info("File '{}' shared successfully from user {} to group {}", filename, sharedByUserId, sharedToGroupId);
-        return fileSharings;
+        return new GroupShareResult(sharedToGroupId, filename, counts[0], created);
     }
 
     @Transactional
@@ -103,6 +137,7 @@ public class FileSharingService {
         if (fileSharing != null) {
             LOGGER.info("File sharing entry found with ID {}. Deleting...", fileSharingId);
             fileSharingRepository.delete(fileSharing);
+            sharesChanged.fire(new SharesChanged(fileSharing.getSharedByUserId()));
             LOGGER.info("File sharing entry with ID {} deleted successfully", fileSharingId);
         } else {
             LOGGER.warn("File sharing entry with ID {} does not exist", fileSharingId);
@@ -112,6 +147,14 @@ public class FileSharingService {
 
 
     public List<FileSharingResponse> getFilesSharedByUser(Long userId) {
+        return getFilesSharedByUser(userId, null, Integer.MAX_VALUE).files();
+    }
+
+    /**
+     * Returns up to {@code limit} shares created by the user after the share {@code afterId}, expanded into
+     * the objects they cover. Usernames come from the same query as the shares.
+     */
+    public SharedFilesPage getFilesSharedByUser(Long userId, Long afterId, int limit) {
         LOGGER.info("Fetching files shared by user: {}", userId);
 
         User user = userRepository.findById(userId);
@@ -120,26 +163,20 @@ public class FileSharingService {
             throw new UserNotFoundException("User " + userId + " not found");
         }
 
-        List<FileSharing> sharedFiles = fileSharingRepository.findBySharedByUserId(userId)
-                .orElse(Collections.emptyList());
-
-        List<FileSharingResponse> responseList = new ArrayList<>();
-        for (FileSharing fileSharing : sharedFiles) {
-            User sharedToUser = userRepository.findById(fileSharing.getSharedToUserId());
-            if (sharedToUser != null) {
-                fileSharing.setSharedToUsername(sharedToUser.getUsername());
-            }
-
-            List<FileObject> fileObjects = listObjectsFromBucket(fileSharing.getSharedByUserId(), fileSharing.getFilename());
-            for (FileObject fileObject : fileObjects) {
-                responseList.add(new FileSharingResponse(fileSharing, fileObject));
-            }
-        }
-
-        return responseList;
+        List<FileSharing> sharedFiles = fileSharingRepository.findBySharedByUserIdWithUsernames(userId, afterId, limit);
+        return toPage(sharedFiles, limit);
     }
 
     public List<FileSharingResponse> getFilesSharedToUser(Long sharedToUserId) {
+        return getFilesSharedToUser(sharedToUserId, null, Integer.MAX_VALUE).files();
+    }
+
+    /**
+     * Returns up to {@code limit} shares the user can access after the share {@code afterId}, expanded into
+     * the objects they cover. This includes shares with any group the user currently belongs to.
+     * Usernames come from the same query as the shares.
+     */
+    public SharedFilesPage getFilesSharedToUser(Long sharedToUserId, Long afterId, int limit) {
         LOGGER.info("Fetching files shared to user: {}", sharedToUserId);
 
         User user = userRepository.findById(sharedToUserId);
@@ -148,52 +185,104 @@ public class FileSharingService {
             throw new UserNotFoundException("User with ID: " + sharedToUserId + " not found");
         }
 
-        List<FileSharing> sharedFiles = fileSharingRepository.findBySharedToUserId(sharedToUserId)
-                .orElse(Collections.emptyList());
+        List<Long> groupIds = groupMemberRepository.findGroupIdsByUserId(sharedToUserId);
+        List<FileSharing> sharedFiles = fileSharingRepository.findBySharedToUserIdWithUsernames(sharedToUserId, groupIds, afterId, limit);
+        return toPage(sharedFiles, limit);
+    }
+
+    private SharedFilesPage toPage(List<FileSharing> sharedFiles, int limit) {
+        Long nextAfterId = sharedFiles.size() < limit ? null : sharedFiles.get(sharedFiles.size() - 1).getId();
+        return new SharedFilesPage(toResponses(sharedFiles), nextAfterId);
+    }
 
-        List<FileSharingResponse> responseList = new ArrayList<>();
+    /**
+     * Expands shares into the objects they cover. Shares are grouped by owner so each owner's bucket is
+     * resolved once, and owners are resolved concurrently, so the cost follows the number of distinct owners.
+     * Responses keep the order of the shares.
+     */
+    private List<FileSharingResponse> toResponses(List<FileSharing> sharedFiles) {
+        Map<Long, Set<String>> filenamesByOwner = new LinkedHashMap<>();
         for (FileSharing fileSharing : sharedFiles) {
-            User sharedByUser = userRepository.findById(fileSharing.getSharedByUserId());
-            if (sharedByUser != null) {
-                fileSharing.setSharedByUsername(sharedByUser.getUsername());
+            filenamesByOwner.computeIfAbsent(fileSharing.getSharedByUserId(), owner -> new LinkedHashSet<>())
+                    .add(fileSharing.getFilename());
+        }
+
+        Semaphore slots = new Semaphore(ownerConcurrency);
+        Map<Long, Future<Map<String, List<FileObject>>>> objectsByOwner = new HashMap<>();
+        try {
+            for (Map.Entry<Long, Set<String>> owner : filenamesByOwner.entrySet()) {
+                String bucketName = owner.getKey() + bucket_suffix;
+                objectsByOwner.put(owner.getKey(), executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return minioService.listObjectsByPrefixes(bucketName, owner.getValue());
+                    } finally {
+                        slots.release();
+                    }
+                }));
             }
 
-            List<FileObject> fileObjects = listObjectsFromBucket(fileSharing.getSharedByUserId(), fileSharing.getFilename());
-            for (FileObject fileObject : fileObjects) {
-                responseList.add(new FileSharingResponse(fileSharing, fileObject));
+            List<FileSharingResponse> responseList = new ArrayList<>();
+            for (FileSharing fileSharing : sharedFiles) {
+                List<FileObject> fileObjects = objectsByOwner.get(fileSharing.getSharedByUserId()).get()
+                        .getOrDefault(fileSharing.getFilename(), List.of());
+                for (FileObject fileObject : fileObjects) {
+                    responseList.add(new FileSharingResponse(fileSharing, fileObject));
+                }
             }
+            return responseList;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while listing shared files", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to list shared files", e.getCause());
+        } finally {
+            objectsByOwner.values().forEach(listing -> listing.cancel(true));
         }
-
-        return responseList;
     }
 
 
-    private List<FileObject> listObjectsFromBucket(Long userId, String filename) {
-        String bucketName = userId + "-bucket";
-
-        ListObjectsV2Request listObjectsReqManual = ListObjectsV2Request.builder()
-                .bucket(bucketName)
-                .prefix(filename)
-                .build();
-
-        ListObjectsV2Response listObjResponse = minioClient.listObjectsV2(listObjectsReqManual);
-
-        return listObjResponse.contents().stream()
-                .map(FileObject::from)
-                .collect(Collectors.toList());
+    /**
+     * Returns {@code true} when the file is <em>not</em> shared with the user. Answers come from a single
+     * indexed existence query and are cached briefly; any change to shares clears the cache once committed.
+     */
+    @ActivateRequestContext
+    @CacheResult(cacheName = PERMISSION_CACHE)
+    public boolean isFileSharedWithUser(Long ownerId, Long userId, String filename) {
+        return !fileSharingRepository.existsShare(ownerId, userId, filename);
     }
 
+    /**
+     * The files among {@code filenames} that the owner shared with the user, resolved with one query for the whole
+     * batch. Not cached: a batch is rarely repeated as is, and caching each key would cost as many cache entries.
+     */
+    public Set<String> findFilesSharedWithUser(Long ownerId, Long userId, Collection<String> filenames) {
+        if (filenames.isEmpty()) {
+            return Set.of();
+        }
+        return fileSharingRepository.findSharedFilenames(ownerId, userId, filenames);
+    }
 
-    public boolean isFileSharedWithUser(Long ownerId, Long userId, String filename) {
-        List<FileSharing> sharedFiles = fileSharingRepository.findBySharedByUserId(ownerId)
-                .orElse(Collections.emptyList());
-
-        for (FileSharing fileSharing : sharedFiles) {
-            if (fileSharing.getFilename().equals(filename) && fileSharing.getSharedToUserId().equals(userId)) {
-                return false;
-            }
+    /**
+     * Drops the cached decisions about files of the owner, or all of them when membership changed, since a group
+     * can hold shares of any owner.
+     */
+    void onSharesChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) SharesChanged event) {
+        if (event.ownerId() == null) {
+            LOGGER.debug("Group membership changed, clearing cached permissions");
+            permissionCache.invalidateAll().await().indefinitely();
+            return;
         }
+        LOGGER.debug("Shares of user {} changed, clearing their cached permissions", event.ownerId());
+        permissionCache.invalidateIf(key -> key instanceof CompositeCacheKey compositeKey
+                        && event.ownerId().equals(compositeKey.getKeyElements()[0]))
+                .await().indefinitely();
+    }
 
-        return true;
+    /**
+     * Fired whenever shares of an owner are created, removed or renamed, or group membership changes,
+     * in which case the owner is {@code null}.
+     */
+    public record SharesChanged(Long ownerId) {
     }
 }
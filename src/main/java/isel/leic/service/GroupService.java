@@ -8,6 +8,7 @@ import isel.leic.repository.GroupMemberRepository;
 import isel.leic.repository.GroupRepository;
 import isel.leic.repository.UserRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.persistence.NoResultException;
 import jakarta.transaction.Transactional;
@@ -29,6 +30,9 @@ public class GroupService {
     UserRepository userRepository;
     @Inject
     GroupMemberRepository groupMemberRepository;
+    // group shares are resolved through membership, so membership changes affect cached share permissions
+    @Inject
+    Event<FileSharingService.SharesChanged> sharesChanged;
 
     public Optional<Group> findByCreatorIdAndName(Long creatorId, String name) {
         try {
@@ -101,7 +105,7 @@ public class GroupService {
 
         LOGGER.info("Adding user with ID '{}' to group with ID '{}'", userId, groupId);
 
-        if (groupContainsUser(group, userId)) {
+        if (groupMemberRepository.existsMember(groupId, userId)) {
             LOGGER.warn("User with ID '{}' is already a member of group with ID '{}'", userId, groupId);
             throw new DuplicateResourceException("User with ID '" + userId + "' is already a member of group with ID '" + groupId + "'");
         }
@@ -113,23 +117,15 @@ public class GroupService {
 
         GroupMember groupMember = new GroupMember(userId, group.getId());
         groupMemberRepository.persist(groupMember);
+        fireMembershipChanged();
 
         LOGGER.info("User with ID '{}' added to group with ID '{}'", userId, groupId);
     }
 
 
 
-    private boolean groupContainsUser(Group group, Long userId) {
-        Optional<List<User>> userListOptional = userRepository.findUsersByGroupId(group.getId());
-        if (userListOptional.isPresent()) {
-            List<User> userList = userListOptional.get();
-            for (User member : userList) {
-                if (member.getId().equals(userId)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private void fireMembershipChanged() {
+        sharesChanged.fire(new FileSharingService.SharesChanged(null));
     }
 
     public List<User> getGroupMembers(Long groupId) {
@@ -177,12 +173,12 @@ public class GroupService {
             throw new GroupNotFoundException("Group with ID '" + groupId + "' not found");
         }
 
-        if (!groupContainsUser(group, userId)) {
+        // the delete's row count tells whether the user was a member, without a separate lookup
+        if (groupMemberRepository.deleteByGroupIdAndUserId(groupId, userId) == 0) {
             LOGGER.warn("User with ID '{}' is not a member of group with ID '{}'", userId, groupId);
             throw new UserNotInGroupException("User with ID '" + userId + "' is not a member of group with ID '" + groupId + "'");
         }
-
-        groupMemberRepository.deleteByGroupIdAndUserId(groupId, userId);
+        fireMembershipChanged();
         LOGGER.info("User with ID '{}' removed from group with ID '{}'", userId, groupId);
     }
 
@@ -197,6 +193,7 @@ public class GroupService {
         }
 
         groupRepository.deleteById(id);
+        fireMembershipChanged();
         LOGGER.info("Group with ID {} removed successfully", id);
     }
 
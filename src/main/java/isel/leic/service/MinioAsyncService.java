@@ -0,0 +1,96 @@
+package isel.leic.service;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import isel.leic.model.storage.FileObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.reactivestreams.FlowAdapters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link MinioService} built on {@link S3AsyncClient}. Nothing here blocks the
+ * calling thread, so it is safe to use from event-loop endpoints.
+ */
+@ApplicationScoped
+public class MinioAsyncService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioAsyncService.class);
+
+    @Inject
+    S3AsyncClient minioAsyncClient;
+
+    public Uni<List<FileObject>> listObjects(String bucketName, String prefix, String delimiter) {
+        LOGGER.info("Listing objects asynchronously in bucket: {}", bucketName);
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .delimiter(delimiter)
+                .build();
+        return Uni.createFrom().completionStage(() -> minioAsyncClient.listObjectsV2(request))
+                .map(response -> response.contents().stream()
+                        .map(FileObject::from)
+                        .toList());
+    }
+
+    /**
+     * Uploads a body that is still arriving, forwarding each chunk to S3 as soon as it is received.
+     */
+    public Uni<String> uploadObject(String bucketName, String objectKey, String contentType, long contentLength, Multi<ByteBuffer> body) {
+        LOGGER.info("Uploading object '{}' asynchronously to bucket: {}", objectKey, bucketName);
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .contentType(contentType)
+                .contentLength(contentLength)
+                .build();
+        AsyncRequestBody requestBody = AsyncRequestBody.fromPublisher(FlowAdapters.toPublisher(body));
+        return Uni.createFrom().completionStage(() -> minioAsyncClient.putObject(request, requestBody))
+                .map(response -> {
+                    LOGGER.info("Object uploaded successfully: {}", objectKey);
+                    return "Object uploaded successfully: " + objectKey;
+                });
+    }
+
+    /**
+     * Opens an object for download. The returned item carries the object metadata and a stream of
+     * its content that is pulled from S3 only as fast as the client consumes it.
+     */
+    public Uni<ObjectContent> downloadObject(String bucketName, String objectKey) {
+        LOGGER.info("Downloading object '{}' asynchronously from bucket: {}", objectKey, bucketName);
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .build();
+        return Uni.createFrom().completionStage(() -> minioAsyncClient.getObject(request, AsyncResponseTransformer.toPublisher()))
+                .map(publisher -> new ObjectContent(publisher.response(),
+                        Multi.createFrom().publisher(FlowAdapters.toFlowPublisher(publisher))
+                                .map(MinioAsyncService::toBytes)));
+    }
+
+    public Uni<String> deleteObject(String bucketName, String objectKey) {
+        LOGGER.info("Deleting object '{}' asynchronously from bucket: {}", objectKey, bucketName);
+        DeleteObjectRequest request = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .build();
+        return Uni.createFrom().completionStage(() -> minioAsyncClient.deleteObject(request))
+                .map(response -> "Object deleted successfully: " + objectKey);
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public record ObjectContent(GetObjectResponse response, Multi<byte[]> content) {}
+}
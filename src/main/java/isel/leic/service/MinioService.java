@@ -1,17 +1,24 @@
 package isel.leic.service;
 
 
+import io.quarkus.runtime.configuration.MemorySize;
 import isel.leic.model.FileSharing;
+import isel.leic.model.storage.ByteRange;
 import isel.leic.model.storage.FileObject;
 import isel.leic.model.storage.FormData;
+import isel.leic.model.storage.ObjectPage;
 import isel.leic.repository.FileSharingRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
@@ -19,16 +26,32 @@ import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequ
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
 import java.util.concurrent.CompletionException;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class MinioService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MinioService.class);
+    private static final int MIN_COPY_BUFFER = 8 * 1024;
+    private static final int MAX_COPY_BUFFER = 1024 * 1024;
+    private static final int MAX_LIST_PAGE_SIZE = 1000;
+    private static final String S3_TOKEN_PREFIX = "s3.";
 
     @Inject
     S3Client minioClient;
@@ -39,6 +62,38 @@ public class MinioService {
     @Inject
     S3Presigner preSigner;
 
+    @Inject
+    ParallelMultipartUploader multipartUploader;
+
+    @Inject
+    SegmentedDownloader segmentedDownloader;
+
+    @Inject
+    BatchObjectDeleter objectDeleter;
+
+    @Inject
+    ObjectIndexService objectIndex;
+
+    @Inject
+    PresignedUrlCache presignedUrls;
+
+    @ConfigProperty(name = "minio.presign.upload-expiry", defaultValue = "15M")
+    Duration uploadUrlExpiry;
+
+    @ConfigProperty(name = "minio.presign.download-expiry", defaultValue = "15M")
+    Duration downloadUrlExpiry;
+
+    @Inject
+    Event<FileSharingService.SharesChanged> sharesChanged;
+
+    @ConfigProperty(name = "minio.upload.multipart-threshold", defaultValue = "64M")
+    MemorySize multipartThreshold;
+
+    @ConfigProperty(name = "minio.download.segmented-threshold", defaultValue = "64M")
+    MemorySize segmentedDownloadThreshold;
+
+    @ConfigProperty(name = "minio.list.stream-page-size", defaultValue = "1000")
+    int streamPageSize;
 
 
     public List<Bucket> listBuckets() {
@@ -53,6 +108,7 @@ public class MinioService {
                 .bucket(bucketName)
                 .build();
         minioClient.createBucket(request);
+        objectIndex.bucketCreated(bucketName);
         LOGGER.info("Bucket created successfully: {}", bucketName);
         return "Bucket created successfully: " + bucketName;
     }
@@ -88,19 +144,23 @@ public class MinioService {
     }
 
     public String deleteBucket(String bucketName) {
+        return deleteBucket(bucketName, deleted -> LOGGER.info("Deleted {} objects so far from bucket: {}", deleted, bucketName));
+    }
+
+    /**
+     * Empties and deletes a bucket, reporting the running number of deleted objects to {@code progress}.
+     */
+    public String deleteBucket(String bucketName, LongConsumer progress) {
         LOGGER.info("Deleting bucket: {}", bucketName);
-        List<FileObject> objects = listObjects(bucketName, null, null);
-        if (!objects.isEmpty()) {
-            for (FileObject object : objects) {
-                deleteObject(bucketName, object.getObjectKey());
-            }
-            LOGGER.info("All objects deleted successfully from bucket: {}", bucketName);
+        objectDeleter.abortMultipartUploads(bucketName);
+        long deleted = objectDeleter.deleteAllObjects(bucketName, progress);
+        if (deleted > 0) {
+            LOGGER.info("All {} objects deleted successfully from bucket: {}", deleted, bucketName);
         } else {
             LOGGER.info("No objects found in bucket: {}", bucketName);
         }
 
-        String result = deleteBucketWithoutObjects(bucketName);
-        return result;
+        return deleteBucketWithoutObjects(bucketName);
     }
 
     private String deleteBucketWithoutObjects(String bucketName) {
@@ -108,6 +168,7 @@ public class MinioService {
                 .bucket(bucketName)
                 .build();
         minioClient.deleteBucket(request);
+        objectIndex.bucketDeleted(bucketName);
         LOGGER.info("Bucket deleted successfully: {}", bucketName);
         return "Bucket deleted successfully: " + bucketName;
     }
@@ -115,15 +176,139 @@ public class MinioService {
     public List<FileObject> listObjects(String bucketName, String prefix, String delimiter) {
         LOGGER.info("Listing objects in bucket: {} {} {}", bucketName, prefix == null ? "" : "with prefix '" + prefix + "'",delimiter == null ? "" : "with delimiter '" + delimiter + "'");
 
-        ListObjectsRequest request = ListObjectsRequest.builder()
+        return streamObjectPages(bucketName, prefix, delimiter)
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Lists a single page of at most {@code limit} objects, starting after the given continuation token.
+     * The page comes from the object index when it is up to date for the bucket, otherwise from S3.
+     * Either way the cost of a page does not depend on how many objects the bucket holds.
+     */
+    public ObjectPage listObjectsPage(String bucketName, String prefix, String delimiter, int limit, String continuationToken) {
+        LOGGER.info("Listing page of {} objects in bucket: {} {}", limit, bucketName, continuationToken == null ? "" : "after token '" + continuationToken + "'");
+        int pageSize = Math.min(limit, MAX_LIST_PAGE_SIZE);
+
+        boolean s3Token = continuationToken != null && continuationToken.startsWith(S3_TOKEN_PREFIX);
+        String afterKey = continuationToken == null || s3Token ? null : decodeKeyToken(continuationToken);
+        if (!s3Token) {
+            Optional<List<FileObject>> indexed = objectIndex.findPage(bucketName, prefix, delimiter, afterKey, pageSize);
+            if (indexed.isPresent()) {
+                List<FileObject> objects = indexed.get();
+                return new ObjectPage(objects, objects.size() < pageSize ? null
+                        : encodeKeyToken(objects.get(objects.size() - 1).getObjectKey()));
+            }
+        }
+
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
                 .bucket(bucketName)
                 .prefix(prefix)
                 .delimiter(delimiter)
+                .maxKeys(pageSize)
+                .startAfter(afterKey)
+                .continuationToken(s3Token ? continuationToken.substring(S3_TOKEN_PREFIX.length()) : null)
                 .build();
-        ListObjectsResponse response = minioClient.listObjects(request);
-        return response.contents().stream()
+        ListObjectsV2Response response = minioClient.listObjectsV2(request);
+        List<FileObject> objects = response.contents().stream()
                 .map(FileObject::from)
                 .toList();
+        return new ObjectPage(objects, Boolean.TRUE.equals(response.isTruncated())
+                ? S3_TOKEN_PREFIX + response.nextContinuationToken() : null);
+    }
+
+    /**
+     * Lazily walks every page of the listing. The next page is only requested once the previous one has
+     * been consumed, so callers can write objects out as they arrive without holding the whole listing.
+     */
+    public Stream<List<FileObject>> streamObjectPages(String bucketName, String prefix, String delimiter) {
+        if (objectIndex.isAuthoritative(bucketName)) {
+            ObjectPage first = listObjectsPage(bucketName, prefix, delimiter, streamPageSize, null);
+            return Stream.iterate(first, Objects::nonNull, page -> page.nextContinuationToken() == null ? null
+                            : listObjectsPage(bucketName, prefix, delimiter, streamPageSize, page.nextContinuationToken()))
+                    .map(ObjectPage::objects);
+        }
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .delimiter(delimiter)
+                .maxKeys(Math.min(streamPageSize, MAX_LIST_PAGE_SIZE))
+                .build();
+        return minioClient.listObjectsV2Paginator(request).stream()
+                .map(page -> page.contents().stream()
+                        .map(FileObject::from)
+                        .toList());
+    }
+
+    /**
+     * Resolves several prefixes of one bucket together: a single index query or, when the index cannot answer,
+     * one listing per prefix that is not already covered by a shorter one. Listing their common prefix instead
+     * could walk the whole bucket, since unrelated keys rarely share more than a few characters. Runs with its
+     * own request context so it can be called from worker threads.
+     */
+    @ActivateRequestContext
+    public Map<String, List<FileObject>> listObjectsByPrefixes(String bucketName, Collection<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return Map.of();
+        }
+        LOGGER.info("Listing objects under {} prefixes in bucket: {}", prefixes.size(), bucketName);
+        List<FileObject> objects = new ArrayList<>(objectIndex.findByPrefixes(bucketName, prefixes)
+                .orElseGet(() -> listOutermostPrefixes(bucketName, prefixes)));
+        objects.sort(Comparator.comparing(FileObject::getObjectKey));
+
+        Map<String, List<FileObject>> result = new HashMap<>();
+        for (String prefix : prefixes) {
+            int first = lowerBound(objects, prefix);
+            int end = first;
+            while (end < objects.size() && objects.get(end).getObjectKey().startsWith(prefix)) {
+                end++;
+            }
+            result.put(prefix, List.copyOf(objects.subList(first, end)));
+        }
+        return result;
+    }
+
+    private List<FileObject> listOutermostPrefixes(String bucketName, Collection<String> prefixes) {
+        List<FileObject> objects = new ArrayList<>();
+        String covering = null;
+        // In sorted order a prefix follows every shorter prefix of it, so covered ones are skipped in one pass
+        for (String prefix : new TreeSet<>(prefixes)) {
+            if (covering != null && prefix.startsWith(covering)) {
+                continue;
+            }
+            covering = prefix;
+            objects.addAll(listObjects(bucketName, prefix, null));
+        }
+        return objects;
+    }
+
+    // Index of the first object whose key is not before the given key, in a list sorted by key
+    private static int lowerBound(List<FileObject> objects, String key) {
+        int low = 0;
+        int high = objects.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (objects.get(middle).getObjectKey().compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Index pages continue after the last key they returned, which S3 can resume from as well with StartAfter.
+    // S3 continuation tokens are opaque and only S3 can resume from them, so they are tagged.
+    private static String encodeKeyToken(String objectKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeKeyToken(String token) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
     }
 
     public String uploadObject(String bucketName, FormData formData) {
@@ -133,11 +318,43 @@ public class MinioService {
                 .key(formData.getFilename())
                 .contentType(formData.getMimetype())
                 .build();
-        minioClient.putObject(request, formData.getData().toPath());
+        File data = formData.getData();
+        long size = data.length();
+        if (size > multipartThreshold.asLongValue()) {
+            multipartUploader.uploadFile(bucketName, formData.getFilename(), formData.getMimetype(), data.toPath(), size);
+            objectIndex.recordFromStorage(bucketName, formData.getFilename());
+        } else {
+            PutObjectResponse response = minioClient.putObject(request, data.toPath());
+            objectIndex.recordUpload(bucketName, formData.getFilename(), size, response.eTag(), formData.getMimetype());
+        }
         LOGGER.info("Object uploaded successfully: {}", formData.getFilename());
         return "Object uploaded successfully: " + formData.getFilename();
     }
 
+    /**
+     * Uploads an object straight from the request body without spooling it to disk.
+     * A body of known length below the multipart threshold is piped into a single putObject;
+     * anything larger, or of unknown length, goes through the parallel multipart uploader.
+     */
+    public String uploadObjectAsStream(String bucketName, String filename, String mimetype, InputStream data, Long contentLength) throws IOException {
+        LOGGER.info("Streaming object '{}' to bucket: {} ({} bytes)", filename, bucketName, contentLength == null ? "unknown" : contentLength);
+        if (contentLength != null && contentLength >= 0 && contentLength <= multipartThreshold.asLongValue()) {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(filename)
+                    .contentType(mimetype)
+                    .contentLength(contentLength)
+                    .build();
+            PutObjectResponse response = minioClient.putObject(request, RequestBody.fromInputStream(data, contentLength));
+            objectIndex.recordUpload(bucketName, filename, contentLength, response.eTag(), mimetype);
+        } else {
+            multipartUploader.uploadStream(bucketName, filename, mimetype, data);
+            objectIndex.recordFromStorage(bucketName, filename);
+        }
+        LOGGER.info("Object uploaded successfully: {}", filename);
+        return "Object uploaded successfully: " + filename;
+    }
+
     public URL generatePreSignedUploadUrl(String bucketName, String objectKey, String contentType) {
         LOGGER.info("Generating presigned upload URL for bucket: {}, object: {}", bucketName, objectKey);
 
@@ -148,9 +365,12 @@ public class MinioService {
                 .build();
 
 
+        Duration signatureDuration = uploadUrlExpiry;
         PresignedPutObjectRequest preSignedRequest = preSigner.presignPutObject(r -> r
-                .signatureDuration(Duration.ofMinutes(15))
+                .signatureDuration(signatureDuration)
                 .putObjectRequest(objectRequest));
+        // the upload bypasses this service, so the index cannot be trusted until the URL has expired
+        objectIndex.markDirty(bucketName, signatureDuration);
 
         URL url = preSignedRequest.url();
         LOGGER.info("Successfully generated presigned upload URL: {}", url);
@@ -158,23 +378,35 @@ public class MinioService {
 
     }
 
+    /**
+     * Returns a presigned download URL, reusing one signed earlier for the object while it is fresh enough.
+     */
     public URL generatePresignedDownloadUrl(String bucketName, String objectKey) {
-        LOGGER.info("Generating presigned download URL for bucket: {}, object: {}", bucketName, objectKey);
+        LOGGER.debug("Generating presigned download URL for bucket: {}, object: {}", bucketName, objectKey);
+        return presignedUrls.get(bucketName, objectKey, () -> presignDownload(bucketName, objectKey));
+    }
 
+    /**
+     * Presigned download URLs of several objects of a bucket, by object key and in the order given.
+     */
+    public Map<String, URL> generatePresignedDownloadUrls(String bucketName, Collection<String> objectKeys) {
+        Map<String, URL> urls = new LinkedHashMap<>();
+        for (String objectKey : objectKeys) {
+            urls.computeIfAbsent(objectKey, key -> generatePresignedDownloadUrl(bucketName, key));
+        }
+        LOGGER.info("Generated {} presigned download URLs for bucket: {}", urls.size(), bucketName);
+        return urls;
+    }
+
+    private PresignedGetObjectRequest presignDownload(String bucketName, String objectKey) {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .key(objectKey)
                 .build();
 
-
-        PresignedGetObjectRequest presignedRequest = preSigner.presignGetObject(r -> r
-                .signatureDuration(Duration.ofMinutes(15))
+        return preSigner.presignGetObject(r -> r
+                .signatureDuration(downloadUrlExpiry)
                 .getObjectRequest(getObjectRequest));
-
-        URL url = presignedRequest.url();
-        LOGGER.info("Successfully generated presigned download URL: {}", url);
-        return url;
-
     }
 
     public String startMultipartUpload(String bucketName, String filename) {
@@ -252,6 +484,7 @@ public class MinioService {
                             .uploadId(uploadId)
                             .multipartUpload(completedUpload)
                             .build());
+            objectIndex.recordFromStorage(bucketName, filename);
             LOGGER.info("Multipart upload completed for '{}'", filename);
         } catch (Exception e) {
             LOGGER.error("Error completing multipart upload for '{}': {}", filename, e.getMessage());
@@ -277,27 +510,65 @@ public class MinioService {
         return outputStream.toByteArray();
     }
 
-    public StreamingOutput downloadObjectAsStream(String bucketName, String objectKey) throws IOException {
-        LOGGER.info("Downloading object '{}' from bucket: {}", objectKey, bucketName);
+    public HeadObjectResponse statObject(String bucketName, String objectKey) {
+        LOGGER.info("Fetching metadata of object '{}' from bucket: {}", objectKey, bucketName);
+        HeadObjectRequest request = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .build();
+        return minioClient.headObject(request);
+    }
+
+    /**
+     * Streams an object, or a single range of it, straight from S3 to the response.
+     * The ETag pins the read to the version that was inspected with {@link #statObject},
+     * so a concurrent overwrite fails the request instead of mixing two versions.
+     */
+    public StreamingOutput downloadObjectRange(String bucketName, String objectKey, ByteRange range, String eTag) {
+        LOGGER.info("Downloading object '{}' from bucket: {} {}", objectKey, bucketName, range == null ? "" : "range " + range.toHeaderValue());
         GetObjectRequest request = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .key(objectKey)
+                .range(range == null ? null : range.toHeaderValue())
+                .ifMatch(eTag)
                 .build();
         ResponseInputStream<GetObjectResponse> responseInputStream = minioClient.getObject(request);
+        Long contentLength = responseInputStream.response().contentLength();
+        int bufferSize = bufferSizeFor(contentLength == null ? 0 : contentLength);
 
-        return new StreamingOutput() {
-            @Override
-            public void write(OutputStream output) throws IOException {
-                byte[] buffer = new byte[1024];
+        return output -> {
+            try (responseInputStream) {
+                byte[] buffer = new byte[bufferSize];
                 int bytesRead;
                 while ((bytesRead = responseInputStream.read(buffer)) != -1) {
                     output.write(buffer, 0, bytesRead);
                 }
-                responseInputStream.close();
             }
         };
     }
 
+    /**
+     * Picks a copy buffer proportional to the transfer, between 8 KB for tiny objects and 1 MB for large ones.
+     */
+    static int bufferSizeFor(long contentLength) {
+        long size = Math.max(MIN_COPY_BUFFER, Math.min(MAX_COPY_BUFFER, contentLength / 64));
+        return Integer.highestOneBit((int) size);
+    }
+
+    /**
+     * Streams a whole object. Objects above {@code minio.download.segmented-threshold} are fetched
+     * as concurrent ranged reads and reassembled in order; smaller ones use a single GetObject.
+     */
+    public StreamingOutput downloadObjectAsStream(String bucketName, String objectKey) throws IOException {
+        HeadObjectResponse head = statObject(bucketName, objectKey);
+        long size = head.contentLength();
+        if (size > segmentedDownloadThreshold.asLongValue()) {
+            LOGGER.info("Downloading object '{}' from bucket: {} in parallel segments", objectKey, bucketName);
+            return output -> segmentedDownloader.download(bucketName, objectKey, head.eTag(), size, output);
+        }
+        return downloadObjectRange(bucketName, objectKey, null, head.eTag());
+    }
+
     public String deleteObject(String bucketName, String objectKey) {
         LOGGER.info("Deleting object '{}' from bucket: {}", objectKey, bucketName);
         DeleteObjectRequest request = DeleteObjectRequest.builder()
@@ -305,6 +576,7 @@ public class MinioService {
                 .key(objectKey)
                 .build();
         minioClient.deleteObject(request);
+        objectIndex.recordDeletion(bucketName, objectKey);
         LOGGER.info("Object deleted successfully: {}", objectKey);
         return "Object deleted successfully: " + objectKey;
     }
@@ -326,14 +598,8 @@ public class MinioService {
             boolean isFolder = "application/x-directory".equals(contentType) || objectKey.endsWith("/");
             if (isFolder) {
                 LOGGER.info("The object '{}' is a folder.", objectKey);
-                ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                        .bucket(bucketName)
-                        .prefix(objectKey)
-                        .build();
-                ListObjectsV2Response listResponse = minioClient.listObjectsV2(listRequest);
-
-                for (S3Object s3Object : listResponse.contents()) {
-                    String oldKey = s3Object.key();
+                for (FileObject fileObject : listObjects(bucketName, objectKey, null)) {
+                    String oldKey = fileObject.getObjectKey();
                     String newKey = oldKey.replaceFirst(objectKey, newObjectKey);
                     renameFile(userId, bucketName, oldKey, newKey);
                 }
@@ -344,6 +610,7 @@ public class MinioService {
                     fs.setFilename(newObjectKey);
                     fileSharingRepository.persist(fs);
                 }
+                sharesChanged.fire(new FileSharingService.SharesChanged(userId));
             }
             return "Object renamed successfully";
         } catch (S3Exception e) {
@@ -362,6 +629,7 @@ public class MinioService {
                     .destinationKey(newObjectKey)
                     .build();
             CopyObjectResponse copyResponse = minioClient.copyObject(copyRequest);
+            objectIndex.recordCopy(bucketName, objectKey, newObjectKey, copyResponse.copyObjectResult());
             LOGGER.info("Object renamed successfully: '{}' to '{}'", objectKey, newObjectKey);
             deleteObject(bucketName, objectKey);
         }catch (S3Exception e){
@@ -0,0 +1,215 @@
+package isel.leic.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import isel.leic.model.ObjectMetadata;
+import isel.leic.model.storage.FileObject;
+import isel.leic.repository.ObjectIndexStateRepository;
+import isel.leic.repository.ObjectMetadataRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the object_metadata table in step with the buckets so listings can skip S3.
+ * <p>
+ * Writes made through this application update the index as they happen. Writes that bypass it, such as
+ * uploads to presigned URLs, mark the bucket dirty; listings of a dirty bucket, or of a bucket that has not been
+ * reconciled yet, go to S3. Every bucket is reconciled against S3 periodically. Whether a bucket is reconciled or
+ * dirty is kept in the object_index_state table, so every instance sees a presigned upload issued by another.
+ * Index failures never fail the storage operation, they only mark the bucket dirty.
+ */
+@ApplicationScoped
+public class ObjectIndexService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjectIndexService.class);
+    private static final String DEFAULT_STORAGE_CLASS = "STANDARD";
+
+    @Inject
+    ObjectMetadataRepository metadataRepository;
+
+    @Inject
+    ObjectIndexStateRepository stateRepository;
+
+    @Inject
+    S3Client minioClient;
+
+    @ConfigProperty(name = "user.bucket.suffix")
+    String bucket_suffix;
+
+    @ConfigProperty(name = "minio.index.enabled", defaultValue = "true")
+    boolean enabled;
+
+    // Buckets whose dirty mark could not be stored; this instance keeps them off the index until it reconciles them
+    private final Set<String> unrecordedDirtyBuckets = ConcurrentHashMap.newKeySet();
+
+    public boolean isAuthoritative(String bucketName) {
+        return enabled && !unrecordedDirtyBuckets.contains(bucketName) && stateRepository.isAuthoritative(bucketName);
+    }
+
+    /**
+     * Returns a page of the listing from the index, or nothing when the index cannot answer it and S3 has to.
+     * Only listings without a delimiter or with the '/' delimiter can be answered.
+     */
+    public Optional<List<FileObject>> findPage(String bucketName, String prefix, String delimiter, String afterKey, int limit) {
+        if (!isAuthoritative(bucketName) || (delimiter != null && !"/".equals(delimiter))) {
+            return Optional.empty();
+        }
+        List<FileObject> objects = metadataRepository.findPage(bucketName, prefix, delimiter != null, afterKey, limit).stream()
+                .map(FileObject::from)
+                .toList();
+        return Optional.of(objects);
+    }
+
+    /**
+     * Returns every object under any of the prefixes, or nothing when the index cannot answer and S3 has to.
+     */
+    public Optional<List<FileObject>> findByPrefixes(String bucketName, Collection<String> prefixes) {
+        if (!isAuthoritative(bucketName)) {
+            return Optional.empty();
+        }
+        return Optional.of(metadataRepository.findByPrefixes(bucketName, prefixes).stream()
+                .map(FileObject::from)
+                .toList());
+    }
+
+    public void bucketCreated(String bucketName) {
+        // A new bucket is empty, so its empty index is already complete
+        write(bucketName, () -> stateRepository.markReconciled(bucketName, Instant.now()));
+    }
+
+    public void bucketDeleted(String bucketName) {
+        unrecordedDirtyBuckets.remove(bucketName);
+        write(bucketName, () -> {
+            metadataRepository.deleteByBucket(bucketName);
+            stateRepository.deleteById(bucketName);
+        });
+    }
+
+    /**
+     * Marks the bucket as possibly written to outside this application for the given time.
+     * It stays dirty until the first reconciliation that starts after that time.
+     */
+    public void markDirty(String bucketName, Duration duration) {
+        if (!enabled) {
+            return;
+        }
+        Instant until = Instant.now().plus(duration);
+        try {
+            QuarkusTransaction.requiringNew().run(() -> stateRepository.markDirty(bucketName, until));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to mark the object index of bucket {} dirty, serving it from storage on this instance", bucketName, e);
+            unrecordedDirtyBuckets.add(bucketName);
+        }
+    }
+
+    public void recordUpload(String bucketName, String objectKey, long size, String eTag, String contentType) {
+        write(bucketName, () -> metadataRepository.upsert(new ObjectMetadata(bucketName, objectKey, size, eTag,
+                Instant.now(), contentType, DEFAULT_STORAGE_CLASS)));
+    }
+
+    /**
+     * Indexes an object whose size is not known to the caller, such as the result of a multipart upload.
+     */
+    public void recordFromStorage(String bucketName, String objectKey) {
+        write(bucketName, () -> {
+            HeadObjectResponse head = minioClient.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .build());
+            metadataRepository.upsert(new ObjectMetadata(bucketName, objectKey, head.contentLength(), head.eTag(),
+                    head.lastModified(), head.contentType(),
+                    head.storageClassAsString() == null ? DEFAULT_STORAGE_CLASS : head.storageClassAsString()));
+        });
+    }
+
+    public void recordDeletion(String bucketName, String objectKey) {
+        write(bucketName, () -> metadataRepository.deleteByKey(bucketName, objectKey));
+    }
+
+    public void recordCopy(String bucketName, String sourceKey, String destinationKey, CopyObjectResult result) {
+        write(bucketName, () -> {
+            Optional<ObjectMetadata> source = metadataRepository.findByKey(bucketName, sourceKey);
+            if (source.isEmpty()) {
+                throw new IllegalStateException("Object '" + sourceKey + "' is not indexed");
+            }
+            ObjectMetadata copy = source.get();
+            metadataRepository.upsert(new ObjectMetadata(bucketName, destinationKey, copy.getSize(), result.eTag(),
+                    result.lastModified(), copy.getContentType(), copy.getStorageClass()));
+        });
+    }
+
+    @Scheduled(every = "${minio.index.reconcile-interval:1h}", delayed = "${minio.index.reconcile-delay:10s}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reconcileAll() {
+        if (!enabled) {
+            return;
+        }
+        for (Bucket bucket : minioClient.listBuckets().buckets()) {
+            if (bucket.name().endsWith(bucket_suffix)) {
+                try {
+                    reconcile(bucket.name());
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to reconcile the object index of bucket: {}", bucket.name(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites the index of a bucket from a full listing, one transaction per listing page, then drops rows of
+     * objects that no longer exist. Rows written while the listing runs are newer than the run and are kept.
+     */
+    public void reconcile(String bucketName) {
+        Instant start = Instant.now();
+        LOGGER.info("Reconciling object index of bucket: {}", bucketName);
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .build();
+        long indexed = 0;
+        try {
+            for (ListObjectsV2Response page : minioClient.listObjectsV2Paginator(request)) {
+                QuarkusTransaction.requiringNew().run(() -> page.contents().forEach(object -> {
+                    ObjectMetadata metadata = new ObjectMetadata(bucketName, object.key(), object.size(), object.eTag(),
+                            object.lastModified(), null, object.storageClassAsString());
+                    metadata.setIndexedAt(start);
+                    metadataRepository.upsert(metadata);
+                }));
+                indexed += page.contents().size();
+            }
+        } catch (NoSuchBucketException e) {
+            LOGGER.info("Bucket {} no longer exists, dropping its index", bucketName);
+            bucketDeleted(bucketName);
+            return;
+        }
+        long removed = QuarkusTransaction.requiringNew().call(() -> metadataRepository.deleteIndexedBefore(bucketName, start));
+
+        QuarkusTransaction.requiringNew().run(() -> stateRepository.markReconciled(bucketName, start));
+        unrecordedDirtyBuckets.remove(bucketName);
+        LOGGER.info("Reconciled object index of bucket {}: {} objects indexed, {} stale entries removed", bucketName, indexed, removed);
+    }
+
+    private void write(String bucketName, Runnable update) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            QuarkusTransaction.requiringNew().run(update);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to update the object index of bucket {}, serving it from storage until reconciled", bucketName, e);
+            markDirty(bucketName, Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package isel.leic.service;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads large bodies as S3 multipart uploads, sending up to {@code minio.upload.concurrency}
+ * parts of a single upload at once from virtual threads. A failed part aborts the whole upload.
+ */
+@ApplicationScoped
+public class ParallelMultipartUploader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMultipartUploader.class);
+
+    @Inject
+    S3Client minioClient;
+
+    @ConfigProperty(name = "minio.upload.part-size", defaultValue = "16M")
+    MemorySize partSize;
+
+    @ConfigProperty(name = "minio.upload.concurrency", defaultValue = "8")
+    int concurrency;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Uploads a file already on local disk; every part is read straight from its slice of the file.
+     */
+    public void uploadFile(String bucketName, String key, String contentType, Path file, long size) {
+        long part = partSize.asLongValue();
+        int partCount = (int) ((size + part - 1) / part);
+        LOGGER.info("Uploading '{}' to bucket {} as {} parts of {} bytes", key, bucketName, partCount, part);
+
+        Upload upload = new Upload(bucketName, key, contentType);
+        try {
+            for (int i = 0; i < partCount; i++) {
+                long offset = i * part;
+                long length = Math.min(part, size - offset);
+                upload.submit(i + 1, RequestBody.fromContentProvider(() -> openSlice(file, offset, length), length, contentType));
+            }
+            upload.complete();
+        } catch (RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Uploads a body of unknown or large length. Parts are read sequentially and handed to the pool;
+     * reading stops while all upload slots are busy, so at most {@code concurrency + 1} parts are buffered.
+     * Bodies smaller than one part are sent with a single putObject.
+     */
+    public void uploadStream(String bucketName, String key, String contentType, InputStream data) throws IOException {
+        int part = Math.toIntExact(partSize.asLongValue());
+        byte[] buffer = new byte[part];
+        int read = readFully(data, buffer);
+        if (read < part) {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .build();
+            minioClient.putObject(request, RequestBody.fromBytes(Arrays.copyOf(buffer, read)));
+            return;
+        }
+
+        Upload upload = new Upload(bucketName, key, contentType);
+        try {
+            int partNumber = 1;
+            while (read > 0) {
+                upload.submit(partNumber++, RequestBody.fromByteBuffer(ByteBuffer.wrap(buffer, 0, read)));
+                buffer = new byte[part];
+                read = readFully(data, buffer);
+            }
+            upload.complete();
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+    }
+
+    private static InputStream openSlice(Path file, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(file);
+            channel.position(offset);
+            return new SliceInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = in.read(buffer, total, buffer.length - total);
+            if (n == -1) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * State of one in-progress multipart upload.
+     */
+    private class Upload {
+        private final String bucketName;
+        private final String key;
+        private final String uploadId;
+        private final Semaphore slots = new Semaphore(concurrency);
+        private final List<Future<CompletedPart>> parts = new ArrayList<>();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Upload(String bucketName, String key, String contentType) {
+            this.bucketName = bucketName;
+            this.key = key;
+            this.uploadId = minioClient.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .build()).uploadId();
+        }
+
+        void submit(int partNumber, RequestBody body) {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while uploading '" + key + "'", e);
+            }
+            throwIfFailed();
+            parts.add(executor.submit(() -> {
+                try {
+                    UploadPartResponse response = minioClient.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .build(), body);
+                    return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    slots.release();
+                }
+            }));
+        }
+
+        void complete() {
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                try {
+                    completedParts.add(part.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while uploading '" + key + "'", e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Failed to upload part of '" + key + "'", e.getCause());
+                }
+            }
+            completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+            minioClient.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            LOGGER.info("Multipart upload of '{}' completed with {} parts", key, completedParts.size());
+        }
+
+        void abort() {
+            parts.forEach(part -> part.cancel(true));
+            LOGGER.error("Aborting multipart upload of '{}' after a failure", key);
+            try {
+                minioClient.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build());
+            } catch (RuntimeException e) {
+                LOGGER.error("Error aborting multipart upload for '{}': {}", key, e.getMessage());
+            }
+        }
+
+        private void throwIfFailed() {
+            RuntimeException e = failure.get();
+            if (e != null) {
+                slots.release();
+                throw new RuntimeException("Failed to upload part of '" + key + "'", e);
+            }
+        }
+    }
+
+    /**
+     * Exposes at most {@code remaining} bytes of the underlying stream.
+     */
+    private static class SliceInputStream extends FilterInputStream {
+        private long remaining;
+
+        SliceInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package isel.leic.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import isel.leic.utils.Argon2PasswordHasher;
+import isel.leic.utils.BCryptPasswordHasher;
+import isel.leic.utils.PasswordHasher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a fixed pool of platform threads, one per core by default, with a bounded queue.
+ * <p>
+ * Hashing is deliberately slow, so running it on request threads lets a burst of logins take the CPU from every
+ * other endpoint. Here the pool caps how much CPU hashing can use, and a request that finds the queue full fails
+ * at once with a 503 instead of waiting. Identical verifications already in flight, such as a client retrying a
+ * login, share one computation.
+ */
+@ApplicationScoped
+public class PasswordHashingService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "user.password-hashing.threads")
+    Optional<Integer> threads;
+
+    @ConfigProperty(name = "user.password-hashing.queue-capacity", defaultValue = "64")
+    int queueCapacity;
+
+    @ConfigProperty(name = "user.password-hashing.algorithm", defaultValue = "bcrypt")
+    String algorithm;
+
+    @ConfigProperty(name = "user.password-hashing.bcrypt.cost", defaultValue = "10")
+    int bcryptCost;
+
+    @ConfigProperty(name = "user.password-hashing.argon2.memory-kib", defaultValue = "19456")
+    int argon2MemoryKiB;
+
+    @ConfigProperty(name = "user.password-hashing.argon2.iterations", defaultValue = "2")
+    int argon2Iterations;
+
+    @ConfigProperty(name = "user.password-hashing.argon2.parallelism", defaultValue = "1")
+    int argon2Parallelism;
+
+    // New hashes use the configured hasher; stored hashes are verified by whichever hasher recognises them
+    private PasswordHasher configured;
+    private List<PasswordHasher> hashers;
+
+    private final Map<Verification, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Counter rejected;
+    private Counter deduplicated;
+
+    @PostConstruct
+    void init() {
+        PasswordHasher bcrypt = new BCryptPasswordHasher(bcryptCost);
+        PasswordHasher argon2 = new Argon2PasswordHasher(argon2MemoryKiB, argon2Iterations, argon2Parallelism);
+        hashers = List.of(bcrypt, argon2);
+        configured = switch (algorithm) {
+            case "bcrypt" -> bcrypt;
+            case "argon2id" -> argon2;
+            default -> throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm);
+        };
+
+        int poolSize = threads.orElse(Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        registry.gauge("password.hashing.queue.depth", executor, pool -> pool.getQueue().size());
+        registry.gauge("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+        hashTimer = Timer.builder("password.hashing.duration").tag("operation", "hash").register(registry);
+        verifyTimer = Timer.builder("password.hashing.duration").tag("operation", "verify").register(registry);
+        rejected = Counter.builder("password.hashing.rejected").register(registry);
+        deduplicated = Counter.builder("password.hashing.deduplicated").register(registry);
+        LOGGER.info("Password hashing with {} started with {} threads and a queue of {}", algorithm, poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String encodePassword(String password) {
+        return await(submit(hashTimer, () -> configured.hash(password)));
+    }
+
+    /**
+     * Whether the stored hash uses another algorithm or other parameters than the configured ones.
+     */
+    public boolean needsRehash(String hashedPassword) {
+        return !configured.supports(hashedPassword) || configured.needsRehash(hashedPassword);
+    }
+
+    public boolean verifyPassword(String password, String hashedPassword) {
+        PasswordHasher hasher = hasherFor(hashedPassword);
+        Verification verification = Verification.of(password, hashedPassword);
+        CompletableFuture<Boolean> mine = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(verification, mine);
+        if (existing != null) {
+            deduplicated.increment();
+            return await(existing);
+        }
+        try {
+            submit(verifyTimer, () -> hasher.verify(password, hashedPassword))
+                    .whenComplete((result, failure) -> {
+                        inFlight.remove(verification, mine);
+                        if (failure != null) {
+                            mine.completeExceptionally(failure);
+                        } else {
+                            mine.complete(result);
+                        }
+                    });
+        } catch (BulkheadException e) {
+            inFlight.remove(verification, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        return await(mine);
+    }
+
+    private PasswordHasher hasherFor(String hashedPassword) {
+        return hashers.stream()
+                .filter(hasher -> hasher.supports(hashedPassword))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Stored password hash has an unknown format"));
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(work), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            LOGGER.warn("Password hashing queue is full, rejecting request");
+            throw new BulkheadException("Password hashing capacity exceeded");
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Same password against the same stored hash; the hash identifies the user. The password is kept only as a
+     * SHA-256 digest salted with the stored hash, so in-flight keys never hold a plaintext password.
+     */
+    private record Verification(String hashedPassword, String passwordDigest) {
+
+        static Verification of(String password, String hashedPassword) {
+            MessageDigest digest = sha256();
+            digest.update(hashedPassword.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return new Verification(hashedPassword, Base64.getEncoder().encodeToString(digest.digest()));
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
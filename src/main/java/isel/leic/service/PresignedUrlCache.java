@@ -0,0 +1,73 @@
+package isel.leic.service;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.presigner.PresignedRequest;
+
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Reuses presigned URLs while they are young enough. A URL is handed out again for the configured fraction of its
+ * lifetime, so every caller still gets at least the rest of the lifetime to use it, and a page that presigns the
+ * same objects over and over signs each of them once per window.
+ * <p>
+ * URLs are cached per object, not per caller: callers are authorized before they reach the cache, and any URL
+ * for the object grants the same access.
+ */
+@ApplicationScoped
+public class PresignedUrlCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PresignedUrlCache.class);
+    static final String PRESIGNED_URL_CACHE = "presigned-urls";
+
+    @CacheName(PRESIGNED_URL_CACHE)
+    Cache cache;
+
+    @ConfigProperty(name = "minio.presign.reuse-fraction", defaultValue = "0.5")
+    double reuseFraction;
+
+    @PostConstruct
+    void init() {
+        if (reuseFraction < 0 || reuseFraction >= 1) {
+            throw new IllegalArgumentException("minio.presign.reuse-fraction must be in [0, 1): " + reuseFraction);
+        }
+    }
+
+    public URL get(String bucketName, String objectKey, Supplier<? extends PresignedRequest> signer) {
+        CaffeineCache urls = cache.as(CaffeineCache.class);
+        ObjectKey key = new ObjectKey(bucketName, objectKey);
+
+        CompletableFuture<CachedUrl> cached = urls.getIfPresent(key);
+        if (cached != null) {
+            CachedUrl url = cached.join();
+            if (Instant.now().isBefore(url.reuseUntil())) {
+                return url.url();
+            }
+        }
+
+        PresignedRequest request = signer.get();
+        if (reuseFraction > 0) {
+            Instant now = Instant.now();
+            long reuseMillis = (long) (Duration.between(now, request.expiration()).toMillis() * reuseFraction);
+            urls.put(key, CompletableFuture.completedFuture(new CachedUrl(request.url(), now.plusMillis(reuseMillis))));
+            LOGGER.debug("Cached presigned URL of {}/{} for {} ms", bucketName, objectKey, reuseMillis);
+        }
+        return request.url();
+    }
+
+    private record ObjectKey(String bucketName, String objectKey) {
+    }
+
+    private record CachedUrl(URL url, Instant reuseUntil) {
+    }
+}
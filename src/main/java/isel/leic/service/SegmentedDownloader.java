@@ -0,0 +1,88 @@
+package isel.leic.service;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Proxies a large object by fetching several byte ranges concurrently and writing them back in order.
+ * At most {@code minio.download.concurrency} segments are in flight or waiting to be written,
+ * which bounds memory to that many segment buffers per download.
+ */
+@ApplicationScoped
+public class SegmentedDownloader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedDownloader.class);
+
+    @Inject
+    S3Client minioClient;
+
+    @ConfigProperty(name = "minio.download.segment-size", defaultValue = "8M")
+    MemorySize segmentSize;
+
+    @ConfigProperty(name = "minio.download.concurrency", defaultValue = "4")
+    int concurrency;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Writes bytes {@code [0, size)} of the object to {@code output}. The ETag pins every ranged read
+     * to the same version of the object.
+     */
+    public void download(String bucketName, String objectKey, String eTag, long size, OutputStream output) throws IOException {
+        long segment = segmentSize.asLongValue();
+        LOGGER.info("Downloading '{}' from bucket {} in {} byte segments", objectKey, bucketName, segment);
+
+        Deque<Future<byte[]>> window = new ArrayDeque<>(concurrency);
+        long next = 0;
+        try {
+            while (next < size || !window.isEmpty()) {
+                while (next < size && window.size() < concurrency) {
+                    long start = next;
+                    long end = Math.min(start + segment, size) - 1;
+                    window.addLast(executor.submit(() -> fetch(bucketName, objectKey, eTag, start, end)));
+                    next = end + 1;
+                }
+                output.write(window.removeFirst().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading '" + objectKey + "'");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to download a segment of '" + objectKey + "'", e.getCause());
+        } finally {
+            window.forEach(pending -> pending.cancel(true));
+        }
+    }
+
+    private byte[] fetch(String bucketName, String objectKey, String eTag, long start, long end) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .range("bytes=" + start + "-" + end)
+                .ifMatch(eTag)
+                .build();
+        return minioClient.getObjectAsBytes(request).asByteArrayUnsafe();
+    }
+}
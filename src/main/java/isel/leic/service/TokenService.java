@@ -0,0 +1,180 @@
+package isel.leic.service;
+
+import io.quarkus.scheduler.Scheduled;
+import isel.leic.exception.TokenException;
+import isel.leic.utils.TokenUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.lang.JoseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Issues access tokens with a signing key that is parsed once and kept in memory.
+ * <p>
+ * The key location is either a classpath resource or, with a {@code file:} prefix, a file on disk. A file is
+ * checked for changes periodically and reloaded when it is replaced, so keys can be rotated without a restart;
+ * a key that fails to load leaves the previous one in use.
+ * <p>
+ * Tokens are verified with the keys at {@code mp.jwt.verify.publickey.location}, which SmallRye JWT reads once at
+ * startup. A signing key is only used if one of those keys verifies it, so replacing the private key alone is
+ * refused instead of issuing tokens nobody accepts. To rotate without a restart, point the verification location
+ * at a JWK set holding the old and the new public key, each with a "kid", and roll it out before replacing the
+ * private key. Tokens then carry the "kid" of the key that signed them, so tokens signed with the old key keep
+ * verifying until they expire. With a single PEM public key both keys have to be replaced together, with a restart.
+ */
+@ApplicationScoped
+public class TokenService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenService.class);
+    private static final String FILE_PREFIX = "file:";
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    @ConfigProperty(name = "jwt.private-key-location")
+    String privateKeyLocation;
+
+    @ConfigProperty(name = "mp.jwt.verify.publickey.location")
+    String verificationKeyLocation;
+
+    // "kid" for a verification key that does not carry one, such as a PEM public key
+    @ConfigProperty(name = "jwt.key-id")
+    Optional<String> keyId;
+
+    @ConfigProperty(name = "mp.jwt.verify.issuer")
+    String tokenIssuer;
+
+    @ConfigProperty(name = "com.cloudshare.quarkusjwt.jwt.duration")
+    long tokenDuration;
+
+    private List<VerificationKey> verificationKeys;
+    private volatile SigningKey signingKey;
+
+    @PostConstruct
+    void init() {
+        verificationKeys = loadVerificationKeys();
+        signingKey = loadKey();
+        LOGGER.info("Loaded token signing key from {}", privateKeyLocation);
+    }
+
+    public String issueToken(Long userId) {
+        SigningKey key = signingKey;
+        return TokenUtils.signToken(key.privateKey(), key.keyId(), userId, tokenIssuer, tokenDuration);
+    }
+
+    /**
+     * Reloads the signing key when it is a file that changed since it was loaded.
+     */
+    @Scheduled(every = "${jwt.key-reload-interval:1m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reloadIfChanged() {
+        SigningKey current = signingKey;
+        if (current.lastModified() == null) {
+            return;
+        }
+        try {
+            if (!current.lastModified().equals(Files.getLastModifiedTime(keyFile()))) {
+                reload();
+            }
+        } catch (IOException | TokenException e) {
+            LOGGER.error("Failed to reload token signing key from {}, keeping the current key", privateKeyLocation, e);
+        }
+    }
+
+    public void reload() {
+        signingKey = loadKey();
+        LOGGER.info("Reloaded token signing key from {}", privateKeyLocation);
+    }
+
+    private SigningKey loadKey() {
+        PrivateKey privateKey;
+        FileTime lastModified = null;
+        try {
+            if (privateKeyLocation.startsWith(FILE_PREFIX)) {
+                Path file = keyFile();
+                lastModified = Files.getLastModifiedTime(file);
+                privateKey = TokenUtils.decodePrivateKey(Files.readString(file, StandardCharsets.UTF_8));
+            } else {
+                privateKey = TokenUtils.readPrivateKey(privateKeyLocation);
+            }
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw new TokenException("Failed to load token signing key from " + privateKeyLocation, e);
+        }
+        if (verificationKeys == null) {
+            return new SigningKey(privateKey, keyId.orElse(null), lastModified);
+        }
+        VerificationKey verifiedBy = verificationKeys.stream()
+                .filter(key -> TokenUtils.isKeyPair(privateKey, key.publicKey()))
+                .findFirst()
+                .orElseThrow(() -> new TokenException("Token signing key from " + privateKeyLocation
+                        + " does not match any verification key in " + verificationKeyLocation));
+        return new SigningKey(privateKey, verifiedBy.keyId() != null ? verifiedBy.keyId() : keyId.orElse(null), lastModified);
+    }
+
+    /**
+     * Reads the keys the verifier trusts: a PEM public key or a JWK set, from the classpath or a file. Remote key
+     * sets are refreshed by the verifier itself and are not checked here, so this returns {@code null} for them.
+     */
+    private List<VerificationKey> loadVerificationKeys() {
+        if (verificationKeyLocation.startsWith("http://") || verificationKeyLocation.startsWith("https://")) {
+            return null;
+        }
+        try {
+            String content = readVerificationKeys();
+            if (!content.trim().startsWith("{")) {
+                return List.of(new VerificationKey(TokenUtils.decodePublicKey(content), null));
+            }
+            List<VerificationKey> keys = new ArrayList<>();
+            for (JsonWebKey key : new JsonWebKeySet(content).getJsonWebKeys()) {
+                if (key instanceof PublicJsonWebKey publicKey) {
+                    keys.add(new VerificationKey(publicKey.getPublicKey(), key.getKeyId()));
+                }
+            }
+            return keys;
+        } catch (IOException | GeneralSecurityException | JoseException | IllegalArgumentException e) {
+            throw new TokenException("Failed to load token verification keys from " + verificationKeyLocation, e);
+        }
+    }
+
+    private String readVerificationKeys() throws IOException {
+        if (verificationKeyLocation.startsWith(FILE_PREFIX)) {
+            return Files.readString(Path.of(verificationKeyLocation.substring(FILE_PREFIX.length())), StandardCharsets.UTF_8);
+        }
+        String resource = verificationKeyLocation.startsWith(CLASSPATH_PREFIX)
+                ? verificationKeyLocation.substring(CLASSPATH_PREFIX.length())
+                : verificationKeyLocation;
+        try (InputStream content = Thread.currentThread().getContextClassLoader()
+                .getResourceAsStream(resource.startsWith("/") ? resource.substring(1) : resource)) {
+            if (content == null) {
+                throw new IOException("Verification key resource not found: " + resource);
+            }
+            return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private Path keyFile() {
+        return Path.of(privateKeyLocation.substring(FILE_PREFIX.length()));
+    }
+
+    // lastModified is null for classpath keys, which cannot change at runtime
+    private record SigningKey(PrivateKey privateKey, String keyId, FileTime lastModified) {
+    }
+
+    private record VerificationKey(PublicKey publicKey, String keyId) {
+    }
+}
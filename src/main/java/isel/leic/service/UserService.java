@@ -1,13 +1,16 @@
 package isel.leic.service;
 
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import isel.leic.exception.DuplicateResourceException;
 import isel.leic.exception.UserNotFoundException;
 import isel.leic.model.Group;
 import isel.leic.model.User;
+import isel.leic.model.UserPage;
+import isel.leic.model.UserSummary;
 import isel.leic.repository.GroupRepository;
 import isel.leic.repository.UserRepository;
-import isel.leic.utils.AuthorizationUtils;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
@@ -30,6 +33,14 @@ public class UserService {
 
     @Inject
     GroupRepository groupRepository;
+    @Inject
+    UsernameIndex usernameIndex;
+    @Inject
+    PasswordHashingService passwordHashingService;
+    @Inject
+    Event<UsernameIndex.UserCreated> userCreated;
+    @Inject
+    Event<UsernameIndex.UserRemoved> userRemoved;
 
     public User findById(Long id) {
         LOGGER.info("Fetching user by id: {}", id);
@@ -40,9 +51,15 @@ public class UserService {
         Optional<User> userOptional = userRepository.findByUsername(username);
         return userOptional.orElse(null);
     }
-    public Optional<List<User>> findByUsernamePrefix(String prefix) {
-        LOGGER.info("Searching for users with username prefix: {}", prefix);
-        return userRepository.findByUsernamePrefix(prefix);
+    /**
+     * Answers from the in-memory username index, or from the database until the index is built.
+     */
+    public List<UserSummary> findByUsernamePrefix(String prefix, int limit) {
+        LOGGER.debug("Searching for users with username prefix: {}", prefix);
+        if (usernameIndex.isReady()) {
+            return usernameIndex.findByPrefix(prefix, limit);
+        }
+        return userRepository.findByUsernamePrefix(prefix, limit);
     }
     public boolean existsById(Long id) {
         LOGGER.info("Checking if user exists with id: {}", id);
@@ -56,6 +73,16 @@ public class UserService {
         return users;
     }
 
+    /**
+     * Returns up to {@code limit} users after the user {@code afterId}, in ID order.
+     */
+    public UserPage findPage(Long afterId, int limit) {
+        LOGGER.info("Fetching up to {} users after id: {}", limit, afterId);
+        List<UserSummary> users = userRepository.findSummaries(afterId, limit);
+        Long nextAfterId = users.size() < limit ? null : users.get(users.size() - 1).id();
+        return new UserPage(users, nextAfterId);
+    }
+
     @Transactional
     public User updatePassword(Long userId, String password) {
         if (userId == null || password == null) {
@@ -67,7 +94,7 @@ public class UserService {
             throw new UserNotFoundException("User with ID " + userId + " not found");
         }
 
-        user.setPassword(AuthorizationUtils.encodePassword(password));
+        user.setPassword(passwordHashingService.encodePassword(password));
         userRepository.persist(user);
         LOGGER.info("Updated password for user with ID {} ", user.getId());
         return user;
@@ -76,11 +103,12 @@ public class UserService {
     @Transactional
     public User createUser(User user) {
         LOGGER.info("Persisting user: {}", user.getUsername());
-        user.setPassword(AuthorizationUtils.encodePassword(user.getPassword()));
+        user.setPassword(passwordHashingService.encodePassword(user.getPassword()));
         if (userRepository.findByUsername(user.getUsername()).isPresent()) {
             throw new DuplicateResourceException("User already exists");
         }
         userRepository.persist(user);
+        userCreated.fire(new UsernameIndex.UserCreated(user.getId(), user.getUsername()));
         return user;
     }
 
@@ -95,6 +123,7 @@ public class UserService {
         }
 
         userRepository.deleteById(userId);
+        userRemoved.fire(new UsernameIndex.UserRemoved(userId, user.getUsername()));
         LOGGER.info("User {} removed successfully", userId);
     }
 
@@ -104,8 +133,9 @@ public class UserService {
         Optional<User> userOptional = userRepository.findByUsername(username);
         if (userOptional.isPresent()) {
             User user = userOptional.get();
-            if (AuthorizationUtils.verifyPassword(password,user.getPassword())) {
+            if (passwordHashingService.verifyPassword(password, user.getPassword())) {
                 LOGGER.info("User {} authenticated successfully", username);
+                rehashIfOutdated(user, password);
                 return user;
             } else {
                 LOGGER.info("User {} authentication failed: Incorrect password", username);
@@ -119,6 +149,25 @@ public class UserService {
 
 
 
+    /**
+     * Upgrades a stored hash made with another algorithm or other parameters than the configured ones, while the
+     * plain password is at hand. A failure leaves the old hash, which still verifies, and does not fail the login.
+     */
+    private void rehashIfOutdated(User user, String password) {
+        String currentHash = user.getPassword();
+        if (!passwordHashingService.needsRehash(currentHash)) {
+            return;
+        }
+        try {
+            String newHash = passwordHashingService.encodePassword(password);
+            if (QuarkusTransaction.requiringNew().call(() -> userRepository.updatePasswordHash(user.getId(), currentHash, newHash))) {
+                LOGGER.info("Rehashed password of user {} with the configured parameters", user.getId());
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to rehash password of user {}", user.getId(), e);
+        }
+    }
+
     public List<Group> findUserGroups(Long userId) {
         LOGGER.info("Finding groups for user with id '{}'", userId);
 
@@ -0,0 +1,290 @@
+package isel.leic.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.scheduler.Scheduled;
+import isel.leic.model.UserSummary;
+import isel.leic.repository.UserRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory username index answering typeahead prefix queries without touching the database.
+ * <p>
+ * Usernames are kept as UTF-8 bytes packed into one array, sorted, with parallel arrays of offsets and user IDs,
+ * so a prefix query is a binary search followed by a scan of the matches. Users created or removed since the
+ * arrays were built live in a small overlay of additions and a set of removed IDs, and the arrays are rebuilt
+ * from the database periodically. Until the first build completes, {@link #isReady()} is {@code false} and
+ * callers query the database instead. Changes made by other instances are picked up by the next rebuild.
+ */
+@ApplicationScoped
+public class UsernameIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsernameIndex.class);
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    @Inject
+    UserRepository userRepository;
+
+    @ConfigProperty(name = "user.search.index.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private final Object lock = new Object();
+    private volatile Generation current;
+    // Receives changes alongside the current generation while a rebuild loads from the database
+    private Generation pending;
+
+    public boolean isReady() {
+        return enabled && current != null;
+    }
+
+    /**
+     * Returns up to {@code limit} users whose username starts with the prefix, in username order.
+     */
+    public List<UserSummary> findByPrefix(String prefix, int limit) {
+        Generation generation = current;
+        if (generation == null) {
+            throw new IllegalStateException("Username index is not built yet");
+        }
+        return generation.findByPrefix(prefix, limit);
+    }
+
+    void onUserCreated(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserCreated event) {
+        synchronized (lock) {
+            for (Generation generation : targets()) {
+                generation.added.put(event.username(), event.userId());
+            }
+        }
+    }
+
+    void onUserRemoved(@Observes(during = TransactionPhase.AFTER_SUCCESS) UserRemoved event) {
+        synchronized (lock) {
+            for (Generation generation : targets()) {
+                generation.added.remove(event.username(), event.userId());
+                generation.removed.add(event.userId());
+            }
+        }
+    }
+
+    private List<Generation> targets() {
+        List<Generation> targets = new ArrayList<>(2);
+        if (current != null) {
+            targets.add(current);
+        }
+        if (pending != null) {
+            targets.add(pending);
+        }
+        return targets;
+    }
+
+    /**
+     * Rebuilds the sorted arrays from the users table and starts a new, empty overlay. Runs at startup and then
+     * periodically, so the overlay stays small and changes made by other instances become visible.
+     */
+    @Scheduled(every = "${user.search.index.rebuild-interval:5m}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Generation next = new Generation();
+        synchronized (lock) {
+            pending = next;
+        }
+        try {
+            next.sorted = load();
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to build the username index", e);
+            synchronized (lock) {
+                pending = null;
+            }
+            return;
+        }
+        synchronized (lock) {
+            current = next;
+            pending = null;
+        }
+        LOGGER.info("Built username index of {} users in {} ms", next.sorted.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private SortedUsernames load() {
+        List<byte[]> names = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        Long afterId = null;
+        List<UserSummary> page;
+        do {
+            Long after = afterId;
+            page = QuarkusTransaction.requiringNew().call(() -> userRepository.findSummaries(after, LOAD_PAGE_SIZE));
+            for (UserSummary user : page) {
+                names.add(user.username().getBytes(StandardCharsets.UTF_8));
+                ids.add(user.id());
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        return SortedUsernames.of(names, ids);
+    }
+
+    /**
+     * Sorted arrays built from one load of the users table plus the changes committed since that load started.
+     */
+    private static final class Generation {
+        private volatile SortedUsernames sorted = SortedUsernames.EMPTY;
+        private final NavigableMap<String, Long> added = new ConcurrentSkipListMap<>(Generation::compareUtf8);
+        private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+        List<UserSummary> findByPrefix(String prefix, int limit) {
+            byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+            List<UserSummary> result = new ArrayList<>(Math.min(limit, 64));
+            Set<Long> seen = new HashSet<>();
+
+            int position = sorted.lowerBound(prefixBytes);
+            Iterator<Map.Entry<String, Long>> overlay = added.tailMap(prefix, true).entrySet().iterator();
+            Map.Entry<String, Long> nextAdded = nextMatch(overlay, prefix);
+
+            while (result.size() < limit) {
+                boolean baseMatches = position < sorted.size() && sorted.startsWith(position, prefixBytes);
+                if (!baseMatches && nextAdded == null) {
+                    break;
+                }
+                String baseName = baseMatches ? sorted.username(position) : null;
+                if (baseMatches && (nextAdded == null || compareUtf8(baseName, nextAdded.getKey()) <= 0)) {
+                    long id = sorted.id(position++);
+                    if (!removed.contains(id) && seen.add(id)) {
+                        result.add(new UserSummary(id, baseName));
+                    }
+                } else {
+                    if (seen.add(nextAdded.getValue())) {
+                        result.add(new UserSummary(nextAdded.getValue(), nextAdded.getKey()));
+                    }
+                    nextAdded = nextMatch(overlay, prefix);
+                }
+            }
+            return result;
+        }
+
+        private static Map.Entry<String, Long> nextMatch(Iterator<Map.Entry<String, Long>> overlay, String prefix) {
+            if (overlay.hasNext()) {
+                Map.Entry<String, Long> entry = overlay.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        // Orders strings as their UTF-8 bytes, the order of the packed arrays
+        private static int compareUtf8(String a, String b) {
+            return Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Usernames as UTF-8 bytes in one array, sorted by unsigned byte order, which is code point order.
+     * Entry {@code i} spans {@code bytes[offsets[i]..offsets[i + 1])} and belongs to user {@code ids[i]}.
+     */
+    static final class SortedUsernames {
+        static final SortedUsernames EMPTY = new SortedUsernames(new byte[0], new int[]{0}, new long[0]);
+
+        private final byte[] bytes;
+        private final int[] offsets;
+        private final long[] ids;
+
+        private SortedUsernames(byte[] bytes, int[] offsets, long[] ids) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.ids = ids;
+        }
+
+        static SortedUsernames of(List<byte[]> names, List<Long> ids) {
+            Integer[] order = new Integer[names.size()];
+            int totalLength = 0;
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+                totalLength += names.get(i).length;
+            }
+            Arrays.sort(order, Comparator.comparing(names::get, Arrays::compareUnsigned));
+
+            byte[] bytes = new byte[totalLength];
+            int[] offsets = new int[order.length + 1];
+            long[] sortedIds = new long[order.length];
+            int offset = 0;
+            for (int i = 0; i < order.length; i++) {
+                byte[] name = names.get(order[i]);
+                System.arraycopy(name, 0, bytes, offset, name.length);
+                offsets[i] = offset;
+                sortedIds[i] = ids.get(order[i]);
+                offset += name.length;
+            }
+            offsets[order.length] = offset;
+            return new SortedUsernames(bytes, offsets, sortedIds);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        long id(int index) {
+            return ids[index];
+        }
+
+        String username(int index) {
+            return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+        }
+
+        boolean startsWith(int index, byte[] prefix) {
+            int start = offsets[index];
+            int length = offsets[index + 1] - start;
+            return length >= prefix.length && Arrays.equals(bytes, start, start + prefix.length, prefix, 0, prefix.length);
+        }
+
+        /**
+         * Index of the first username not less than {@code key}.
+         */
+        int lowerBound(byte[] key) {
+            int low = 0;
+            int high = ids.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int start = offsets[mid];
+                if (Arrays.compareUnsigned(bytes, start, offsets[mid + 1], key, 0, key.length) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Fired when a user is created.
+     */
+    public record UserCreated(Long userId, String username) {
+    }
+
+    /**
+     * Fired when a user is removed.
+     */
+    public record UserRemoved(Long userId, String username) {
+    }
+}
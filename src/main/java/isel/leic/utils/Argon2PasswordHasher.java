@@ -0,0 +1,109 @@
+package isel.leic.utils;
+
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Argon2id in the PHC string format, {@code $argon2id$v=19$m=<KiB>,t=<iterations>,p=<lanes>$<salt>$<hash>},
+ * with salt and hash in unpadded Base64.
+ */
+public class Argon2PasswordHasher implements PasswordHasher {
+
+    private static final String PREFIX = "$argon2id$";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final int memoryKiB;
+    private final int iterations;
+    private final int parallelism;
+
+    public Argon2PasswordHasher(int memoryKiB, int iterations, int parallelism) {
+        if (parallelism < 1 || iterations < 1 || memoryKiB < 8 * parallelism) {
+            throw new IllegalArgumentException("Invalid Argon2 parameters: m=" + memoryKiB + ", t=" + iterations + ", p=" + parallelism);
+        }
+        this.memoryKiB = memoryKiB;
+        this.iterations = iterations;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password, salt, memoryKiB, iterations, parallelism, HASH_LENGTH);
+        return PREFIX + "v=" + Argon2Parameters.ARGON2_VERSION_13
+                + "$m=" + memoryKiB + ",t=" + iterations + ",p=" + parallelism
+                + "$" + ENCODER.encodeToString(salt) + "$" + ENCODER.encodeToString(hash);
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        Encoded encoded = Encoded.parse(hash);
+        byte[] actual = derive(password, encoded.salt(), encoded.memoryKiB(), encoded.iterations(), encoded.parallelism(),
+                encoded.hash().length);
+        return MessageDigest.isEqual(actual, encoded.hash());
+    }
+
+    @Override
+    public boolean supports(String hash) {
+        return hash.startsWith(PREFIX);
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        Encoded encoded = Encoded.parse(hash);
+        return encoded.memoryKiB() != memoryKiB || encoded.iterations() != iterations || encoded.parallelism() != parallelism
+                || encoded.hash().length != HASH_LENGTH;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int memoryKiB, int iterations, int parallelism, int length) {
+        Argon2Parameters parameters = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withMemoryAsKB(memoryKiB)
+                .withIterations(iterations)
+                .withParallelism(parallelism)
+                .withSalt(salt)
+                .build();
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.init(parameters);
+        byte[] result = new byte[length];
+        generator.generateBytes(password.getBytes(StandardCharsets.UTF_8), result);
+        return result;
+    }
+
+    private record Encoded(int memoryKiB, int iterations, int parallelism, byte[] salt, byte[] hash) {
+
+        // "$argon2id$v=19$m=..,t=..,p=..$salt$hash" splits into "", "argon2id", "v=19", params, salt, hash
+        static Encoded parse(String encoded) {
+            String[] parts = encoded.split("\\$");
+            if (parts.length != 6 || !"argon2id".equals(parts[1]) || !("v=" + Argon2Parameters.ARGON2_VERSION_13).equals(parts[2])) {
+                throw new IllegalArgumentException("Not an Argon2id v19 hash");
+            }
+            int memoryKiB = -1;
+            int iterations = -1;
+            int parallelism = -1;
+            for (String parameter : parts[3].split(",")) {
+                String[] keyValue = parameter.split("=", 2);
+                int value = Integer.parseInt(keyValue[1]);
+                switch (keyValue[0]) {
+                    case "m" -> memoryKiB = value;
+                    case "t" -> iterations = value;
+                    case "p" -> parallelism = value;
+                    default -> throw new IllegalArgumentException("Unknown Argon2 parameter: " + keyValue[0]);
+                }
+            }
+            if (memoryKiB < 0 || iterations < 0 || parallelism < 0) {
+                throw new IllegalArgumentException("Missing Argon2 parameters");
+            }
+            return new Encoded(memoryKiB, iterations, parallelism, DECODER.decode(parts[4]), DECODER.decode(parts[5]));
+        }
+    }
+}
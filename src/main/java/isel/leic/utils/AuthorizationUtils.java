@@ -1,7 +1,6 @@
 package isel.leic.utils;
 
 import jakarta.ws.rs.ForbiddenException;
-import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,20 +8,15 @@ public class AuthorizationUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthorizationUtils.class);
 
     public static void checkAuthorization(Long userId, String authenticatedUsername) {
-        if (!authenticatedUsername.equals(String.valueOf(userId))) {
+        if (!isAuthorized(userId, authenticatedUsername)) {
             String errorMessage = String.format("User '%s' is not authorized to access this resource", authenticatedUsername);
             throw new ForbiddenException(errorMessage);
         } else {
-            LOGGER.info("User '{}' is authorized to access this resource", authenticatedUsername);
+            LOGGER.debug("User '{}' is authorized to access this resource", authenticatedUsername);
         }
     }
 
-    public static String encodePassword(String password) {
-        String salt = BCrypt.gensalt();
-        return BCrypt.hashpw(password, salt);
-    }
-
-    public static boolean verifyPassword(String password, String hashedPassword) {
-        return BCrypt.checkpw(password, hashedPassword);
+    public static boolean isAuthorized(Long userId, String authenticatedUsername) {
+        return authenticatedUsername.equals(String.valueOf(userId));
     }
 }
\ No newline at end of file
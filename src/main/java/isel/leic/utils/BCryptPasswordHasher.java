@@ -0,0 +1,47 @@
+package isel.leic.utils;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * BCrypt in the modular crypt format, {@code $2a$<cost>$<salt and hash>}. Only the {@code $2a$} version is
+ * supported: jBCrypt throws on {@code $2b$} and {@code $2y$} hashes instead of verifying them.
+ */
+public class BCryptPasswordHasher implements PasswordHasher {
+
+    private final int cost;
+
+    public BCryptPasswordHasher(int cost) {
+        if (cost < 4 || cost > 31) {
+            throw new IllegalArgumentException("BCrypt cost must be between 4 and 31: " + cost);
+        }
+        this.cost = cost;
+    }
+
+    @Override
+    public String hash(String password) {
+        return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        return BCrypt.checkpw(password, hash);
+    }
+
+    @Override
+    public boolean supports(String hash) {
+        return hash.startsWith("$2a$");
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        return costOf(hash) != cost;
+    }
+
+    private static int costOf(String hash) {
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package isel.leic.utils;
+
+/**
+ * A password hashing scheme. Hashes are self-describing strings that carry the algorithm, its parameters and the
+ * salt, so a stored hash can be verified after the configured scheme changes.
+ */
+public interface PasswordHasher {
+
+    String hash(String password);
+
+    boolean verify(String password, String hash);
+
+    /**
+     * Whether the hash was produced by this algorithm, with any parameters.
+     */
+    boolean supports(String hash);
+
+    /**
+     * Whether the hash, which this hasher supports, was produced with parameters other than the configured ones.
+     */
+    boolean needsRehash(String hash);
+}
@@ -3,14 +3,19 @@ package isel.leic.utils;
 import io.smallrye.jwt.algorithm.SignatureAlgorithm;
 
 import io.smallrye.jwt.build.Jwt;
-import io.smallrye.jwt.build.JwtClaimsBuilder;
-import org.eclipse.microprofile.config.ConfigProvider;
+import io.smallrye.jwt.build.JwtSignatureBuilder;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 
 
@@ -18,30 +23,34 @@ import java.util.Base64;
 public class TokenUtils {
 
 
-    public static String generateToken(Long userId, String issuer, Long duration) throws Exception {
-        String privateLocation = ConfigProvider.getConfig().getValue("jwt.private-key-location", String.class);
-        PrivateKey privateKey = readPrivateKey(privateLocation);
-
-        JwtClaimsBuilder claimsBuilder = Jwt.claims();
+    /**
+     * Signs an access token for the user with an already parsed key. {@code keyId} is set as the "kid" header when present.
+     */
+    public static String signToken(PrivateKey privateKey, String keyId, Long userId, String issuer, long duration) {
         long currentTimeInSecs = currentTimeInSecs();
 
-        claimsBuilder.issuer(issuer);
-        claimsBuilder.subject(String.valueOf(userId));
-        claimsBuilder.issuedAt(currentTimeInSecs);
-        claimsBuilder.expiresAt(currentTimeInSecs + duration);
-
-        return claimsBuilder.jws().algorithm(SignatureAlgorithm.RS256).sign(privateKey);
+        JwtSignatureBuilder signatureBuilder = Jwt.issuer(issuer)
+                .subject(String.valueOf(userId))
+                .issuedAt(currentTimeInSecs)
+                .expiresAt(currentTimeInSecs + duration)
+                .jws()
+                .algorithm(SignatureAlgorithm.RS256);
+        if (keyId != null) {
+            signatureBuilder.keyId(keyId);
+        }
+        return signatureBuilder.sign(privateKey);
     }
 
-    public static PrivateKey readPrivateKey(final String pemResName) throws Exception {
+    public static PrivateKey readPrivateKey(final String pemResName) throws IOException, GeneralSecurityException {
         try (InputStream contentIS = TokenUtils.class.getResourceAsStream(pemResName)) {
-            byte[] tmp = new byte[4096];
-            int length = contentIS.read(tmp);
-            return decodePrivateKey(new String(tmp, 0, length, StandardCharsets.UTF_8));
+            if (contentIS == null) {
+                throw new IOException("Private key resource not found: " + pemResName);
+            }
+            return decodePrivateKey(new String(contentIS.readAllBytes(), StandardCharsets.UTF_8));
         }
     }
 
-    public static PrivateKey decodePrivateKey(final String pemEncoded) throws Exception {
+    public static PrivateKey decodePrivateKey(final String pemEncoded) throws GeneralSecurityException {
         byte[] encodedBytes = toEncodedBytes(pemEncoded);
 
         PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(encodedBytes);
@@ -49,22 +58,40 @@ public class TokenUtils {
         return kf.generatePrivate(keySpec);
     }
 
+    public static PublicKey decodePublicKey(final String pemEncoded) throws GeneralSecurityException {
+        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(toEncodedBytes(pemEncoded));
+        return KeyFactory.getInstance("RSA").generatePublic(keySpec);
+    }
+
+    /**
+     * Whether the public key verifies signatures made with the private key: both RSA with the same modulus.
+     */
+    public static boolean isKeyPair(PrivateKey privateKey, PublicKey publicKey) {
+        return privateKey instanceof RSAPrivateKey rsaPrivate
+                && publicKey instanceof RSAPublicKey rsaPublic
+                && rsaPrivate.getModulus().equals(rsaPublic.getModulus());
+    }
+
     public static byte[] toEncodedBytes(final String pemEncoded) {
         final String normalizedPem = removeBeginEnd(pemEncoded);
         return Base64.getDecoder().decode(normalizedPem);
     }
 
+    /**
+     * Returns the Base64 body of a PEM document, without the armour lines and line breaks.
+     */
     public static String removeBeginEnd(String pem) {
-        pem = pem.replaceAll("-----BEGIN (.*)-----", "");
-        pem = pem.replaceAll("-----END (.*)----", "");
-        pem = pem.replaceAll("\r\n", "");
-        pem = pem.replaceAll("\n", "");
-        return pem.trim();
+        StringBuilder body = new StringBuilder(pem.length());
+        for (String line : pem.split("\r?\n")) {
+            if (!line.startsWith("-----")) {
+                body.append(line.trim());
+            }
+        }
+        return body.toString();
     }
 
-    public static int currentTimeInSecs() {
-        long currentTimeMS = System.currentTimeMillis();
-        return (int) (currentTimeMS / 1000);
+    public static long currentTimeInSecs() {
+        return System.currentTimeMillis() / 1000;
     }
 
 
@@ -0,0 +1,27 @@
+-- Schema as it existed before migrations were introduced. Databases that already have it are
+-- baselined at this version (quarkus.flyway.baseline-on-migrate) and skip this script.
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGSERIAL PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS groups (
+    id         BIGSERIAL PRIMARY KEY,
+    name       VARCHAR(255) NOT NULL,
+    creator_id BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS group_member (
+    user_id  BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    group_id BIGINT NOT NULL REFERENCES groups (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, group_id)
+);
+
+CREATE TABLE IF NOT EXISTS file_sharing (
+    id                BIGSERIAL PRIMARY KEY,
+    shared_by_user_id BIGINT       REFERENCES users (id) ON DELETE CASCADE,
+    shared_to_user_id BIGINT       REFERENCES users (id) ON DELETE CASCADE,
+    filename          VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,34 @@
+CREATE TABLE account_deletion_job (
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT       NOT NULL,
+    bucket_name     VARCHAR(255) NOT NULL,
+    status          VARCHAR(16)  NOT NULL,
+    objects_deleted BIGINT       NOT NULL DEFAULT 0,
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    last_error      TEXT,
+    lease_until     TIMESTAMP WITH TIME ZONE,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Workers only ever look for jobs that are not finished yet
+CREATE INDEX idx_account_deletion_job_runnable ON account_deletion_job (id)
+    WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX idx_account_deletion_job_user_id ON account_deletion_job (user_id, id);
+
+-- Keys compare byte-wise ("C" collation) so the index orders them the way S3 lists them
+CREATE TABLE object_metadata (
+    id            BIGSERIAL PRIMARY KEY,
+    bucket_name   VARCHAR(255)  NOT NULL,
+    object_key    VARCHAR(1024) COLLATE "C" NOT NULL,
+    parent_prefix VARCHAR(1024) COLLATE "C" NOT NULL,
+    size          BIGINT        NOT NULL,
+    etag          VARCHAR(255),
+    last_modified TIMESTAMP WITH TIME ZONE NOT NULL,
+    content_type  VARCHAR(255),
+    storage_class VARCHAR(64),
+    indexed_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_object_metadata_key UNIQUE (bucket_name, object_key)
+);
+
+CREATE INDEX idx_object_metadata_parent ON object_metadata (bucket_name, parent_prefix, object_key);
@@ -0,0 +1,22 @@
+-- Existing duplicate shares would block the unique index, keep the oldest of each
+DELETE FROM file_sharing duplicate
+    USING file_sharing original
+    WHERE duplicate.id > original.id
+      AND duplicate.shared_by_user_id = original.shared_by_user_id
+      AND duplicate.shared_to_user_id = original.shared_to_user_id
+      AND duplicate.filename = original.filename;
+
+-- Permission checks and "shared by" views; the leading column also serves lookups by owner alone
+CREATE UNIQUE INDEX IF NOT EXISTS uk_file_sharing_share
+    ON file_sharing (shared_by_user_id, shared_to_user_id, filename);
+-- Renames look shares up by owner and filename
+CREATE INDEX IF NOT EXISTS idx_file_sharing_by_filename ON file_sharing (shared_by_user_id, filename);
+CREATE INDEX IF NOT EXISTS idx_file_sharing_to_user ON file_sharing (shared_to_user_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_group_member_user_id ON group_member (user_id);
+CREATE INDEX IF NOT EXISTS idx_group_member_group_id ON group_member (group_id);
+
+CREATE INDEX IF NOT EXISTS idx_groups_creator_name ON groups (creator_id, name);
+
+-- LIKE 'prefix%' can only use a btree index in a non-C collation through text_pattern_ops
+CREATE INDEX IF NOT EXISTS idx_users_username_pattern ON users (username text_pattern_ops);
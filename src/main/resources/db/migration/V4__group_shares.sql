@@ -0,0 +1,14 @@
+-- Group shares are one row per (owner, group, file); members are resolved through group_member when read
+ALTER TABLE file_sharing
+    ADD COLUMN shared_to_group_id BIGINT REFERENCES groups (id) ON DELETE CASCADE;
+
+-- Every share targets either a user or a group. NOT VALID leaves rows written before this version unchecked
+ALTER TABLE file_sharing
+    ADD CONSTRAINT ck_file_sharing_recipient
+        CHECK ((shared_to_user_id IS NULL) <> (shared_to_group_id IS NULL)) NOT VALID;
+
+CREATE UNIQUE INDEX uk_file_sharing_group_share
+    ON file_sharing (shared_by_user_id, shared_to_group_id, filename)
+    WHERE shared_to_group_id IS NOT NULL;
+CREATE INDEX idx_file_sharing_to_group ON file_sharing (shared_to_group_id, id)
+    WHERE shared_to_group_id IS NOT NULL;
@@ -0,0 +1,7 @@
+-- Whether the object index of a bucket can answer listings, shared by every instance. The index is
+-- authoritative once reconciled, unless a write outside the application may have happened since
+CREATE TABLE object_index_state (
+    bucket_name   VARCHAR(255) PRIMARY KEY,
+    reconciled_at TIMESTAMP WITH TIME ZONE,
+    dirty_until   TIMESTAMP WITH TIME ZONE
+);
@@ -0,0 +1,7 @@
+-- The group_member primary key (user_id, group_id) already serves lookups by user_id
+DROP INDEX IF EXISTS idx_group_member_user_id;
+
+-- Username search filters and orders in the "C" collation; a text_pattern_ops index serves the LIKE but cannot
+-- supply that order, so every match was sorted. A "C" collated btree serves both, and LIMIT stops the scan early
+DROP INDEX IF EXISTS idx_users_username_pattern;
+CREATE INDEX idx_users_username_pattern ON users (username COLLATE "C");
@@ -0,0 +1,105 @@
+package isel.leic.repositories;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import isel.leic.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the hot lookups are planned on the indexes created by the migrations.
+ * Test tables are tiny, so sequential scans are disabled for the transaction; a plan that still
+ * contains one means no usable index exists.
+ */
+@QuarkusTest
+public class QueryPlanTest {
+
+    @Inject
+    EntityManager entityManager;
+
+    @Test
+    @Transactional
+    public void testFileSharingBySharedByUserIdUsesIndex() {
+        assertUsesIndex("SELECT * FROM file_sharing WHERE shared_by_user_id = 1",
+                "uk_file_sharing_share", "idx_file_sharing_by_filename");
+    }
+
+    @Test
+    @Transactional
+    public void testSharePermissionCheckUsesIndex() {
+        assertUsesIndex("SELECT 1 FROM file_sharing WHERE shared_by_user_id = 1 AND shared_to_user_id = 2 AND filename = 'a.txt'",
+                "uk_file_sharing_share", "idx_file_sharing_by_filename");
+    }
+
+    @Test
+    @Transactional
+    public void testFileSharingBySharedToUserIdUsesIndex() {
+        assertUsesIndex("SELECT * FROM file_sharing WHERE shared_to_user_id = 1 ORDER BY id", "idx_file_sharing_to_user");
+    }
+
+    @Test
+    @Transactional
+    public void testFileSharingBySharedToGroupIdUsesIndex() {
+        assertUsesIndex("SELECT * FROM file_sharing WHERE shared_to_group_id IN (1, 2)", "idx_file_sharing_to_group");
+    }
+
+    @Test
+    @Transactional
+    public void testGroupMemberByUserIdUsesIndex() {
+        assertUsesIndex("SELECT * FROM group_member WHERE user_id = 1", "group_member_pkey");
+    }
+
+    @Test
+    @Transactional
+    public void testGroupMembershipCheckUsesPrimaryKey() {
+        assertUsesIndex("SELECT 1 FROM group_member WHERE user_id = 1 AND group_id = 2", "group_member_pkey");
+    }
+
+    @Test
+    @Transactional
+    public void testGroupByCreatorAndNameUsesIndex() {
+        assertUsesIndex("SELECT * FROM groups WHERE creator_id = 1 AND name = 'group'", "idx_groups_creator_name");
+    }
+
+    @Test
+    @Transactional
+    public void testUsernamePrefixUsesIndex() {
+        String plan = assertUsesIndex(UserRepository.USERNAME_PREFIX, List.of("abc%", 10), "idx_users_username_pattern");
+        assertFalse(plan.contains("Sort"), "Matches sorted instead of read in index order:\n" + plan);
+    }
+
+    private void assertUsesIndex(String query, String... indexNames) {
+        assertUsesIndex(query, List.of(), indexNames);
+    }
+
+    /**
+     * Fails if the plan scans the table sequentially or, when index names are given, uses none of them.
+     * Parameters are bound to the query's ordinal placeholders in order.
+     *
+     * @return the plan
+     */
+    @SuppressWarnings("unchecked")
+    private String assertUsesIndex(String query, List<Object> parameters, String... indexNames) {
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+        Query explain = entityManager.createNativeQuery("EXPLAIN " + query);
+        for (int i = 0; i < parameters.size(); i++) {
+            explain.setParameter(i + 1, parameters.get(i));
+        }
+        List<String> plan = explain.getResultList();
+        String planText = String.join("\n", plan);
+
+        assertFalse(planText.contains("Seq Scan"), "Sequential scan in plan:\n" + planText);
+        if (indexNames.length > 0) {
+            assertTrue(Arrays.stream(indexNames).anyMatch(planText::contains),
+                    "None of " + Arrays.toString(indexNames) + " used in plan:\n" + planText);
+        }
+        return planText;
+    }
+}
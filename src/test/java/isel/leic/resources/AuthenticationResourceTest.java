@@ -151,7 +151,7 @@ public class AuthenticationResourceTest {
                 .header("Authorization", "Bearer " + token)
                 .when()
                 .delete("/user/" + user.getId());
-        response.then().statusCode(200);
+        response.then().statusCode(202);
     }
 
     @Test
@@ -201,19 +201,19 @@ public class FileSharingResourceTest {
                 .header("Authorization", "Bearer " + token)
                 .when()
                 .delete("/user/" + user1Id)
-                .then().statusCode(200);
+                .then().statusCode(202);
 
         given()
                 .header("Authorization", "Bearer " + token2)
                 .when()
                 .delete("/user/" + user2Id)
-                .then().statusCode(200);
+                .then().statusCode(202);
 
        given()
                 .header("Authorization", "Bearer " + token3)
                 .when()
                 .delete("/user/" + user3Id)
-                .then().statusCode(200);
+                .then().statusCode(202);
 
 
 
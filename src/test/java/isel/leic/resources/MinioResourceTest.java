@@ -20,6 +20,7 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static io.restassured.RestAssured.given;
@@ -95,6 +96,92 @@ public class MinioResourceTest {
         assertEquals(14694, downloadedFileSize, "Downloaded file size doesn't match expected size");
     }
 
+    @Test
+    @Order(3)
+    public void testDownloadFile_Range() {
+        String objectKey = "test-file.txt";
+
+        Response response = given()
+                .header("Authorization", "Bearer " + token)
+                .header("Range", "bytes=100-199")
+                .when()
+                .get("/user/" + userId1 + "/object/download?objectKey=" + objectKey);
+
+        response.then()
+                .statusCode(206)
+                .header("Accept-Ranges", "bytes")
+                .header("Content-Range", "bytes 100-199/14694");
+
+        assertEquals(100, response.asByteArray().length, "Partial download size doesn't match requested range");
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .header("Range", "bytes=20000-")
+                .when()
+                .get("/user/" + userId1 + "/object/download?objectKey=" + objectKey)
+                .then()
+                .statusCode(416);
+    }
+
+    @Test
+    @Order(3)
+    public void testAsyncListAndDownload() {
+        given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .get("/user/" + userId1 + "/object/async")
+                .then()
+                .statusCode(200)
+                .body("objectKey", hasItem("test-file.txt"));
+
+        byte[] fileBytes = given()
+                .header("Authorization", "Bearer " + token)
+                .queryParam("objectKey", "test-file.txt")
+                .when()
+                .get("/user/" + userId1 + "/object/async/download")
+                .then()
+                .statusCode(200)
+                .extract().asByteArray();
+
+        assertEquals(14694, fileBytes.length, "Async download size doesn't match expected size");
+    }
+
+    @Test
+    @Order(3)
+    public void testListFiles_PagedAndNdjson() {
+        given()
+                .header("Authorization", "Bearer " + token)
+                .queryParam("limit", 1)
+                .when()
+                .get("/user/" + userId1 + "/object")
+                .then()
+                .statusCode(200)
+                .header(MinioResource.NEXT_CONTINUATION_TOKEN, nullValue())
+                .body("size()", equalTo(1))
+                .body("[0].objectKey", equalTo("test-file.txt"));
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .queryParam("limit", 0)
+                .when()
+                .get("/user/" + userId1 + "/object")
+                .then()
+                .statusCode(400);
+
+        String lines = given()
+                .header("Authorization", "Bearer " + token)
+                .accept("application/x-ndjson")
+                .when()
+                .get("/user/" + userId1 + "/object")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("application/x-ndjson"))
+                .extract().asString();
+
+        assertEquals(1, lines.lines().count());
+        assertTrue(lines.contains("\"objectKey\":\"test-file.txt\""));
+    }
+
     @Test
     @Order(4)
     public void testGetPresignedUploadUrl() {
@@ -192,6 +279,41 @@ public class MinioResourceTest {
                 .get("/user/" + userId1 + "/object/download")
                 .then()
                 .statusCode(200);
+
+        // Owner and share recipient can both presign a download of the file
+        for (String bearer : new String[]{token, token2}) {
+            given()
+                    .header("Authorization", "Bearer " + bearer)
+                    .contentType(ContentType.JSON)
+                    .body(new MinioResource.DownloadRequest("new-test-file.txt"))
+                    .when()
+                    .post("/user/" + userId1 + "/object/presign/download")
+                    .then()
+                    .statusCode(200)
+                    .body("presignedUrl", notNullValue());
+        }
+
+        // The recipient gets URLs only for the shared file, reused from the single presign above
+        String presignedUrl = given()
+                .header("Authorization", "Bearer " + token2)
+                .contentType(ContentType.JSON)
+                .body(new MinioResource.DownloadRequest("new-test-file.txt"))
+                .when()
+                .post("/user/" + userId1 + "/object/presign/download")
+                .then()
+                .statusCode(200)
+                .extract().path("presignedUrl");
+
+        given()
+                .header("Authorization", "Bearer " + token2)
+                .contentType(ContentType.JSON)
+                .body(new MinioResource.BatchDownloadRequest(List.of("new-test-file.txt", "filename.txt")))
+                .when()
+                .post("/user/" + userId1 + "/object/presign/download/batch")
+                .then()
+                .statusCode(200)
+                .body("presignedUrls.'new-test-file.txt'", equalTo(presignedUrl))
+                .body("denied", contains("filename.txt"));
     }
 
     @Test
@@ -220,14 +342,14 @@ public class MinioResourceTest {
                 .when()
                 .delete("/user/" + userId1)
                 .then()
-                .statusCode(200);
+                .statusCode(202);
 
         given()
                 .header("Authorization", "Bearer " + token2)
                 .when()
                 .delete("/user/" + userId2)
                 .then()
-                .statusCode(200);
+                .statusCode(202);
     }
 
 }
\ No newline at end of file
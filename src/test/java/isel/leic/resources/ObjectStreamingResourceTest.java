@@ -0,0 +1,75 @@
+package isel.leic.resources;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streams listings one object per page, so a listing of a few objects already spans several pages.
+ */
+@QuarkusTest
+@TestProfile(ObjectStreamingResourceTest.OneObjectPerStreamPage.class)
+public class ObjectStreamingResourceTest {
+
+    @Test
+    public void testListFiles_NdjsonAcrossPages() throws IOException {
+        Response signup = given()
+                .contentType(ContentType.JSON)
+                .body("{\"username\":\"streamUser\",\"password\":\"streamPassword\"}")
+                .when()
+                .post("/auth/signup");
+        String token = signup.jsonPath().getString("token");
+        Long userId = signup.jsonPath().getLong("user.id");
+
+        for (String filename : List.of("test-file2.txt", "test-file.txt")) {
+            given()
+                    .header("Authorization", "Bearer " + token)
+                    .multiPart("file", new File("src/main/resources/" + filename), "text/plain")
+                    .formParam("filename", filename)
+                    .formParam("mimetype", "text/plain")
+                    .when()
+                    .post("/user/" + userId + "/object")
+                    .then()
+                    .statusCode(201);
+        }
+
+        String lines = given()
+                .header("Authorization", "Bearer " + token)
+                .accept("application/x-ndjson")
+                .when()
+                .get("/user/" + userId + "/object")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("application/x-ndjson"))
+                .extract().asString();
+
+        List<String> objectKeys = new ArrayList<>();
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : lines.lines().toList()) {
+            objectKeys.add(mapper.readTree(line).get("objectKey").asText());
+        }
+        assertEquals(List.of("test-file.txt", "test-file2.txt"), objectKeys);
+        assertTrue(lines.endsWith("\n"));
+    }
+
+    public static class OneObjectPerStreamPage implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("minio.list.stream-page-size", "1");
+        }
+    }
+}
@@ -10,6 +10,10 @@ import org.junit.jupiter.api.*;
 import java.util.List;
 import static io.restassured.RestAssured.given;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
 
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -61,6 +65,50 @@ public class UserAndGroupResourceTest {
 
     @Test
     @Order(2)
+    public void testUserListingPagesAndSearch() {
+        Response firstPage = given()
+                .header("Authorization", "Bearer " + token)
+                .queryParam("limit", 1)
+                .when()
+                .get("/user");
+
+        firstPage.then().statusCode(200);
+        assertEquals(1, firstPage.jsonPath().getList("$").size());
+        String nextAfterId = firstPage.getHeader("X-Next-After-Id");
+        assertEquals(firstPage.jsonPath().getString("[0].id"), nextAfterId);
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .queryParam("afterId", nextAfterId)
+                .queryParam("limit", 1)
+                .when()
+                .get("/user")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(1));
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .queryParam("prefix", "newU")
+                .when()
+                .get("/user/search")
+                .then()
+                .statusCode(200)
+                .body("username", hasItem("newUser"))
+                .body("username", everyItem(startsWith("newU")));
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .queryParam("prefix", "%")
+                .when()
+                .get("/user/search")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(0));
+    }
+
+    @Test
+    @Order(3)
     public void testUpdateUserPassword() {
         String newPassword = "newPassword123";
 
@@ -82,7 +130,7 @@ public class UserAndGroupResourceTest {
     }
 
     @Test
-    @Order(3)
+    @Order(4)
     public void testCreateGroupEndpoint() {
         String groupName = "Test Group";
 
@@ -100,7 +148,7 @@ public class UserAndGroupResourceTest {
 
 
     @Test
-    @Order(4)
+    @Order(5)
     public void testGetGroupsEndpoint() {
         Response response = given()
                 .contentType(MediaType.APPLICATION_JSON)
@@ -116,7 +164,7 @@ public class UserAndGroupResourceTest {
     }
 
     @Test
-    @Order(5)
+    @Order(6)
     public void testUpdateGroupName() {
         String newName = "Updated Group Name";
 
@@ -146,7 +194,7 @@ public class UserAndGroupResourceTest {
 
 
     @Test
-    @Order(6)
+    @Order(7)
     public void testAddUserToGroup() {
         Long userId = userId2;
 
@@ -162,7 +210,7 @@ public class UserAndGroupResourceTest {
     }
 
     @Test
-    @Order(7)
+    @Order(8)
     public void testGetGroupMembers() {
 
         Response response = given()
@@ -180,7 +228,7 @@ public class UserAndGroupResourceTest {
     }
 
     @Test
-    @Order(8)
+    @Order(9)
     public void testRemoveMemberFromGroup() {
         Response response = given()
                 .contentType(MediaType.APPLICATION_JSON)
@@ -191,7 +239,7 @@ public class UserAndGroupResourceTest {
         response.then().statusCode(200);
     }
     @Test
-    @Order(9)
+    @Order(10)
     public void testGetEmptyGroupMembers() {
 
         Response response = given()
@@ -206,14 +254,23 @@ public class UserAndGroupResourceTest {
 
 
     @Test
-    @Order(10)
+    @Order(11)
     public void testDeleteUserEndpoint() {
         Response temp = given()
                 .header("Authorization", "Bearer " + token)
                 .when()
                 .delete("/user/" + userId1);
 
-        temp.then().statusCode(200);
+        temp.then().statusCode(202);
+
+        given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .get("/user/" + userId1 + "/deletion")
+                .then()
+                .statusCode(200)
+                .body("userId", equalTo(userId1.intValue()))
+                .body("bucketName", equalTo(userId1 + "-bucket"));
 
         Response response = given()
                 .header("Authorization", "Bearer " + token2)
@@ -221,7 +278,7 @@ public class UserAndGroupResourceTest {
                 .delete("/user/" + userId2);
 
 
-        response.then().statusCode(200);
+        response.then().statusCode(202);
 
     }
 
@@ -0,0 +1,154 @@
+package isel.leic.resources;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.junit.mockito.InjectSpy;
+import io.quarkus.test.junit5.virtual.ShouldNotPin;
+import io.quarkus.test.junit5.virtual.VirtualThreadUnit;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import isel.leic.resource.MinioResource;
+import isel.leic.service.MinioService;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Runs S3-bound endpoints with far more concurrent requests than the worker pool has threads. The pool is capped
+ * at 8 threads, and every presign request is held inside the endpoint until all of them are in flight, which
+ * only happens when each request has its own virtual thread. Listings must still be served while they are held.
+ * The test also fails if any endpoint pins its carrier thread.
+ */
+@QuarkusTest
+@VirtualThreadUnit
+@ShouldNotPin
+@TestProfile(VirtualThreadLoadTest.SmallWorkerPoolProfile.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class VirtualThreadLoadTest {
+
+    private static final int WORKER_THREADS = 8;
+    private static final int CONCURRENT_REQUESTS = 150;
+
+    private static String token;
+    private static Long userId;
+
+    @InjectSpy
+    MinioService minioService;
+
+    public static class SmallWorkerPoolProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.thread-pool.max-threads", String.valueOf(WORKER_THREADS));
+        }
+    }
+
+    @Test
+    @Order(1)
+    public void testSignup() {
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .body("{\"username\":\"loadUser\",\"password\":\"loadPassword\"}")
+                .when()
+                .post("/auth/signup");
+
+        response.then().statusCode(200);
+        token = response.jsonPath().getString("token");
+        userId = response.jsonPath().getLong("user.id");
+    }
+
+    @Test
+    @Order(2)
+    @Timeout(60)
+    public void testConcurrentListingAndPresigning() throws Exception {
+        // Every presign request parks inside the endpoint until all of them are in flight at once
+        AtomicInteger parked = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            parked.incrementAndGet();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+                return invocation.callRealMethod();
+            } finally {
+                parked.decrementAndGet();
+            }
+        }).when(minioService).generatePreSignedUploadUrl(anyString(), anyString(), anyString());
+
+        MinioResource.UploadRequest uploadRequest = new MinioResource.UploadRequest("load-file.txt", "text/plain");
+        List<Future<Integer>> presigns = new ArrayList<>();
+        List<Future<Integer>> listings = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                    presigns.add(clients.submit(() -> given()
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(ContentType.JSON)
+                            .body(uploadRequest)
+                            .when()
+                            .post("/user/" + userId + "/object/presign/upload")
+                            .statusCode()));
+                }
+                // With platform worker threads no more than WORKER_THREADS requests could be parked here
+                awaitUntil(() -> parked.get() == CONCURRENT_REQUESTS,
+                        () -> parked.get() + " of " + CONCURRENT_REQUESTS + " requests in flight");
+
+                // and these would wait behind the parked requests instead of being served
+                for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                    listings.add(clients.submit(() -> given()
+                            .header("Authorization", "Bearer " + token)
+                            .when()
+                            .get("/user/" + userId + "/object")
+                            .statusCode()));
+                }
+                for (Future<Integer> status : listings) {
+                    assertEquals(200, status.get(10, TimeUnit.SECONDS));
+                }
+                assertEquals(CONCURRENT_REQUESTS, parked.get());
+            } finally {
+                release.countDown();
+            }
+        }
+
+        for (Future<Integer> status : presigns) {
+            assertEquals(200, status.get());
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition, Supplier<String> state) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 10 seconds: " + state.get());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @Order(3)
+    public void testDeleteUser() {
+        given()
+                .header("Authorization", "Bearer " + token)
+                .when()
+                .delete("/user/" + userId)
+                .then()
+                .statusCode(202);
+    }
+}
@@ -0,0 +1,150 @@
+package isel.leic.services;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.junit.mockito.InjectSpy;
+import isel.leic.model.AccountDeletionJob;
+import isel.leic.model.User;
+import isel.leic.model.storage.FormData;
+import isel.leic.repository.AccountDeletionJobRepository;
+import isel.leic.service.AccountDeletionService;
+import isel.leic.service.MinioService;
+import isel.leic.service.UserService;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Drives the deletion worker by hand. The scheduler is disabled so a scheduled run cannot claim a job between
+ * the call and the assertions.
+ */
+@QuarkusTest
+@TestProfile(AccountDeletionServiceTest.WithoutScheduler.class)
+public class AccountDeletionServiceTest {
+
+    @Inject
+    AccountDeletionService accountDeletionService;
+    @Inject
+    AccountDeletionJobRepository jobRepository;
+    @Inject
+    UserService userService;
+    @InjectSpy
+    MinioService minioService;
+
+    @Test
+    public void testWorkerDeletesBucketWithObjects() {
+        User user = new User("deletionuser", "password");
+        userService.createUser(user);
+        String bucketName = user.getId() + "-bucket";
+        minioService.createBucket(bucketName);
+        upload(bucketName, "test-file.txt");
+        upload(bucketName, "test-file2.txt");
+
+        AccountDeletionJob scheduled = accountDeletionService.scheduleDeletion(user.getId());
+        assertEquals(AccountDeletionJob.Status.PENDING, reload(scheduled.getId()).getStatus());
+
+        accountDeletionService.processPendingJobs();
+
+        AccountDeletionJob job = accountDeletionService.getDeletionStatus(user.getId());
+        assertEquals(scheduled.getId(), job.getId());
+        assertEquals(AccountDeletionJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getObjectsDeleted());
+        assertEquals(1, job.getAttempts());
+        assertNull(job.getLastError());
+        assertTrue(minioService.listBuckets().stream().noneMatch(bucket -> bucket.name().equals(bucketName)),
+                "Bucket was not deleted");
+    }
+
+    @Test
+    public void testFailedAttemptIsRetriedAfterBackoff() {
+        String bucketName = "failing-deletion-bucket";
+        doThrow(SdkClientException.create("Storage unavailable"))
+                .when(minioService).deleteBucket(eq(bucketName), any(LongConsumer.class));
+        Long failingId = persistJob(bucketName, AccountDeletionJob.Status.PENDING, null);
+        Long nextId = persistJob("next-deletion-bucket", AccountDeletionJob.Status.PENDING, null);
+
+        Instant before = Instant.now();
+        accountDeletionService.processPendingJobs();
+
+        AccountDeletionJob failed = reload(failingId);
+        assertEquals(AccountDeletionJob.Status.PENDING, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertEquals("Storage unavailable", failed.getLastError());
+        assertFalse(failed.getLeaseUntil().isBefore(before.plus(Duration.ofSeconds(30))),
+                "Retry was not pushed out by the backoff");
+
+        // the worker stops at the first failure and leaves the next job for a later poll
+        AccountDeletionJob next = reload(nextId);
+        assertEquals(AccountDeletionJob.Status.PENDING, next.getStatus());
+        assertEquals(0, next.getAttempts());
+
+        // while the backoff runs the failed job is not claimed again
+        accountDeletionService.processPendingJobs();
+        assertEquals(1, reload(failingId).getAttempts());
+        assertEquals(AccountDeletionJob.Status.COMPLETED, reload(nextId).getStatus());
+    }
+
+    @Test
+    public void testJobWithExpiredLeaseIsReclaimed() {
+        Long expiredId = persistJob("expired-lease-bucket", AccountDeletionJob.Status.RUNNING,
+                Instant.now().minus(Duration.ofMinutes(1)));
+        Long leasedId = persistJob("leased-bucket", AccountDeletionJob.Status.RUNNING,
+                Instant.now().plus(Duration.ofMinutes(5)));
+
+        accountDeletionService.processPendingJobs();
+
+        AccountDeletionJob reclaimed = reload(expiredId);
+        assertEquals(AccountDeletionJob.Status.COMPLETED, reclaimed.getStatus());
+        assertEquals(2, reclaimed.getAttempts());
+
+        // a job whose worker still holds the lease is left alone
+        AccountDeletionJob leased = reload(leasedId);
+        assertEquals(AccountDeletionJob.Status.RUNNING, leased.getStatus());
+        assertEquals(1, leased.getAttempts());
+    }
+
+    private void upload(String bucketName, String filename) {
+        FormData formData = new FormData();
+        formData.data = new File("src/main/resources/" + filename);
+        formData.filename = filename;
+        formData.mimetype = "text/plain";
+        assertTrue(minioService.uploadObject(bucketName, formData).startsWith("Object uploaded successfully"));
+    }
+
+    // A job that is already RUNNING was claimed once, so it starts with one attempt
+    private Long persistJob(String bucketName, AccountDeletionJob.Status status, Instant leaseUntil) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            AccountDeletionJob job = new AccountDeletionJob(-1L, bucketName);
+            job.setStatus(status);
+            job.setAttempts(status == AccountDeletionJob.Status.RUNNING ? 1 : 0);
+            job.setLeaseUntil(leaseUntil);
+            jobRepository.persist(job);
+            return job.getId();
+        });
+    }
+
+    // Reads the row in a new transaction so the state written by the worker is seen, not a cached entity
+    private AccountDeletionJob reload(Long jobId) {
+        return QuarkusTransaction.requiringNew().call(() -> jobRepository.findById(jobId));
+    }
+
+    public static class WithoutScheduler implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.scheduler.enabled", "false");
+        }
+    }
+}
@@ -3,10 +3,12 @@ package isel.leic.services;
 import io.quarkus.test.junit.QuarkusTest;
 import isel.leic.exception.DuplicateResourceException;
 import isel.leic.model.Group;
+import isel.leic.model.GroupShareResult;
 import isel.leic.model.User;
 import isel.leic.model.storage.FileObject;
 import isel.leic.model.storage.FormData;
 import isel.leic.model.FileSharingResponse;
+import isel.leic.model.SharedFilesPage;
 import isel.leic.service.FileSharingService;
 import isel.leic.service.GroupService;
 import isel.leic.service.MinioService;
@@ -34,6 +36,10 @@ public class FileSharingServiceTest {
     @Inject
     MinioService minioService;
 
+    // testUpdateFileSharingEntries renames the shared file; tests after it must use the new name
+    private static final String FILENAME = "test-file.txt";
+    private static final String RENAMED_FILENAME = "test-file-new.txt";
+
     private static Long fileShareIdToUser;
     private static Long user1Id;
     private static Long user2Id;
@@ -56,7 +62,7 @@ public class FileSharingServiceTest {
         minioService.createBucket(bucketName);
         FormData formData = new FormData();
         formData.data = new File("src/main/resources/test-file.txt");
-        formData.filename = "test-file.txt";
+        formData.filename = FILENAME;
         formData.mimetype = "text/plain";
 
         String uploadResult = minioService.uploadObject(bucketName, formData);
@@ -90,13 +96,24 @@ public class FileSharingServiceTest {
         assertNotNull(fileObjectByUser1.getETag());
         assertNotNull(fileObjectByUser1.getStorageClass());
 
+        // Usernames are filled in by the share query itself
+        assertEquals("user2", responseByUser1.getFileSharing().getSharedToUsername());
+        assertEquals("user1", responseToUser2.getFileSharing().getSharedByUsername());
+
         fileShareIdToUser = responseByUser1.getFileSharing().getId();
+
+        SharedFilesPage firstPage = fileSharingService.getFilesSharedByUser(user1Id, null, 1);
+        assertEquals(1, firstPage.files().size());
+        assertEquals(fileShareIdToUser, firstPage.nextAfterId());
+        SharedFilesPage secondPage = fileSharingService.getFilesSharedByUser(user1Id, firstPage.nextAfterId(), 1);
+        assertTrue(secondPage.files().isEmpty());
+        assertNull(secondPage.nextAfterId());
     }
 
     @Test
     @Order(2)
     public void testCreateDuplicateFileSharingEntry() {
-        String filename = "test-file.txt";
+        String filename = FILENAME;
         assertThrows(DuplicateResourceException.class, () -> {
             fileSharingService.shareFileToUser(user1Id, user2Id, filename);
         });
@@ -114,21 +131,28 @@ public class FileSharingServiceTest {
         userService.createUser(user3);
         groupService.addUserToGroup(user3.getId(), groupId);
 
-        String filename = "test-file.txt";
-        fileSharingService.shareFileToGroup(user1Id, groupId, filename);
+        String filename = FILENAME;
+        GroupShareResult result = fileSharingService.shareFileToGroup(user1Id, groupId, filename);
+        assertEquals(1, result.members());
+        assertTrue(result.created());
         groupId = group.getId();
 
+        // Sharing again does not create a second group share
+        assertFalse(fileSharingService.shareFileToGroup(user1Id, groupId, filename).created());
+
         List<FileSharingResponse> filesSharedToGroup = fileSharingService.getFilesSharedToUser(user3.getId());
         assertEquals(1, filesSharedToGroup.size());
         assertEquals(filename, filesSharedToGroup.get(0).getFileObject().getObjectKey());
+        assertEquals(groupId, filesSharedToGroup.get(0).getFileSharing().getSharedToGroupId());
+        // members get access through the group share
+        assertFalse(fileSharingService.isFileSharedWithUser(user1Id, user3.getId(), filename));
 
         user3Id = user3.getId();
     }
     @Test
     @Order(4)
     public void testUpdateFileSharingEntries() {
-        String filename = "test-file.txt";
-        minioService.renameObject(user1Id,user1Id+"-bucket", filename, "test-file-new.txt");
+        minioService.renameObject(user1Id, user1Id + "-bucket", FILENAME, RENAMED_FILENAME);
 
     }
     @Test
@@ -143,8 +167,13 @@ public class FileSharingServiceTest {
     @Test
     @Order(6)
     public void testDeleteFileSharingToUsers() {
+        // isFileSharedWithUser answers true when the file is not shared
+        assertFalse(fileSharingService.isFileSharedWithUser(user1Id, user2Id, RENAMED_FILENAME));
+
         fileSharingService.unshareFile(fileShareIdToUser);
 
+        assertTrue(fileSharingService.isFileSharedWithUser(user1Id, user2Id, RENAMED_FILENAME),
+                "Cached permission survived the unshare");
         assertEquals(1, fileSharingService.getFilesSharedByUser(user1Id).size());
         assertEquals(0, fileSharingService.getFilesSharedToUser(user2Id).size());
 
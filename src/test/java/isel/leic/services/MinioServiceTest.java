@@ -4,16 +4,20 @@ import io.quarkus.test.junit.QuarkusTest;
 import isel.leic.model.storage.FileObject;
 import isel.leic.model.storage.FormData;
 import isel.leic.service.MinioService;
+import isel.leic.service.ObjectIndexService;
 import jakarta.inject.Inject;
 
 import org.junit.jupiter.api.*;
 import software.amazon.awssdk.services.s3.model.Bucket;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,6 +28,9 @@ public class MinioServiceTest {
     @Inject
     MinioService minioService;
 
+    @Inject
+    ObjectIndexService objectIndexService;
+
     @Test
     @Order(1)
     public void testCreateBucket() {
@@ -58,6 +65,16 @@ public class MinioServiceTest {
         assertTrue(result.startsWith("Object uploaded successfully"), "Object upload failed");
     }
 
+    @Test
+    @Order(4)
+    public void testUploadObjectAsStream() throws IOException {
+        try (InputStream data = new FileInputStream("src/main/resources/test-file2.txt")) {
+            String result = minioService.uploadObjectAsStream("test-bucket", "home/test-file2.txt", "text/plain", data, null);
+            assertTrue(result.startsWith("Object uploaded successfully"), "Streaming upload failed");
+        }
+        assertTrue(minioService.doesObjectExist("test-bucket", "home/test-file2.txt"), "Streamed object not found");
+    }
+
     @Test
     @Order(5)
     public void testDownloadFile() throws IOException {
@@ -102,6 +119,26 @@ public class MinioServiceTest {
     }
     @Test
     @Order(7)
+    public void testIndexedListingMatchesStorage() {
+        List<String> indexed = minioService.listObjects("test-bucket", "homeRenamed/", "/").stream()
+                .map(FileObject::getObjectKey)
+                .toList();
+
+        objectIndexService.markDirty("test-bucket", Duration.ZERO);
+        List<String> stored = minioService.listObjects("test-bucket", "homeRenamed/", "/").stream()
+                .map(FileObject::getObjectKey)
+                .toList();
+        objectIndexService.reconcile("test-bucket");
+
+        assertEquals(stored, indexed, "Index listing differs from the bucket listing");
+        assertTrue(objectIndexService.isAuthoritative("test-bucket"), "Index not authoritative after reconciliation");
+        assertEquals(stored, minioService.listObjects("test-bucket", "homeRenamed/", "/").stream()
+                .map(FileObject::getObjectKey)
+                .toList(), "Reconciliation changed the listing");
+    }
+
+    @Test
+    @Order(8)
     public void testListObjectsAndDeleteObject() {
         List<FileObject> response = minioService.listObjects("test-bucket", "homeRenamed",null);
 
@@ -0,0 +1,101 @@
+package isel.leic.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import isel.leic.service.PasswordHashingService;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs with one hashing thread and a queue of one, and verifies hashes of a high bcrypt cost so the pool stays
+ * saturated while the assertions run.
+ */
+@QuarkusTest
+@TestProfile(PasswordHashingServiceTest.SinglePasswordHashingThread.class)
+public class PasswordHashingServiceTest {
+
+    private static final int SLOW_COST = 14;
+
+    @Inject
+    PasswordHashingService passwordHashingService;
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    public void testFullQueueIsRejectedAtOnceAndDuplicatesShareOneComputation() throws Exception {
+        String runningHash = BCrypt.hashpw("running", BCrypt.gensalt(SLOW_COST));
+        String queuedHash = BCrypt.hashpw("queued", BCrypt.gensalt(SLOW_COST));
+        double rejectedBefore = counter("password.hashing.rejected");
+        double deduplicatedBefore = counter("password.hashing.deduplicated");
+
+        CompletableFuture<Boolean> running = verifyAsync("running", runningHash);
+        awaitUntil(() -> gauge("password.hashing.active") == 1);
+        CompletableFuture<Boolean> queued = verifyAsync("queued", queuedHash);
+        awaitUntil(() -> gauge("password.hashing.queue.depth") == 1);
+
+        // joins the queued verification instead of taking a queue slot
+        CompletableFuture<Boolean> duplicate = verifyAsync("queued", queuedHash);
+        awaitUntil(() -> counter("password.hashing.deduplicated") == deduplicatedBefore + 1);
+
+        long start = System.nanoTime();
+        assertThrows(BulkheadException.class, () -> passwordHashingService.encodePassword("rejected"));
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"username\":\"rejecteduser\",\"password\":\"rejected\"}")
+                .when()
+                .post("/auth/signup")
+                .then()
+                .statusCode(503);
+        assertTrue(System.nanoTime() - start < 1_000_000_000L, "Rejection waited for the queue");
+        assertEquals(rejectedBefore + 2, counter("password.hashing.rejected"));
+
+        assertTrue(running.get());
+        assertTrue(queued.get());
+        assertTrue(duplicate.get());
+        assertEquals(0, gauge("password.hashing.queue.depth"));
+        assertTrue(registry.get("password.hashing.duration").tag("operation", "verify").timer().count() >= 2);
+    }
+
+    private CompletableFuture<Boolean> verifyAsync(String password, String hash) {
+        return CompletableFuture.supplyAsync(() -> passwordHashingService.verifyPassword(password, hash));
+    }
+
+    private double counter(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not reached within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    public static class SinglePasswordHashingThread implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "user.password-hashing.threads", "1",
+                    "user.password-hashing.queue-capacity", "1");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package isel.leic.services;
+
+import io.quarkus.test.junit.QuarkusTest;
+import isel.leic.model.User;
+import isel.leic.service.TokenService;
+import isel.leic.service.UserService;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+public class TokenServiceTest {
+
+    @Inject
+    TokenService tokenService;
+    @Inject
+    UserService userService;
+
+    @Test
+    public void testTokenIssuedAfterReloadIsAccepted() {
+        User user = userService.createUser(new User("token-reload-user", "password"));
+        String before = tokenService.issueToken(user.getId());
+
+        tokenService.reload();
+        String after = tokenService.issueToken(user.getId());
+
+        // both tokens verify against the configured public key
+        for (String token : new String[]{before, after}) {
+            given()
+                    .header("Authorization", "Bearer " + token)
+                    .when()
+                    .post("/auth/refresh-token")
+                    .then()
+                    .statusCode(200);
+        }
+        userService.removeUser(user.getId());
+    }
+}
@@ -1,10 +1,14 @@
 package isel.leic.services;
 
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import isel.leic.exception.DuplicateResourceException;
 import isel.leic.exception.GroupNotFoundException;
+import isel.leic.exception.UserNotInGroupException;
 import isel.leic.model.Group;
 import isel.leic.model.User;
+import isel.leic.model.UserSummary;
+import isel.leic.repository.UserRepository;
 import isel.leic.service.GroupService;
 import isel.leic.service.UserService;
 import jakarta.inject.Inject;
@@ -12,6 +16,7 @@ import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.mindrot.jbcrypt.BCrypt;
 
 import java.util.List;
 
@@ -25,6 +30,8 @@ public class UserAndGroupServiceTest {
     UserService userService;
     @Inject
     GroupService groupService;
+    @Inject
+    UserRepository userRepository;
 
 
     @Test
@@ -42,6 +49,9 @@ public class UserAndGroupServiceTest {
         assertEquals(2, users.size());
         assertEquals("user1", users.get(0).getUsername());
         assertEquals("user2", users.get(1).getUsername());
+
+        List<UserSummary> matches = userService.findByUsernamePrefix("user", 10);
+        assertEquals(List.of("user1", "user2"), matches.stream().map(UserSummary::username).toList());
     }
 
     @Test
@@ -114,7 +124,9 @@ public class UserAndGroupServiceTest {
 
         List<User> usersFromGroup = groupService.getGroupMembers(group.getId());
         assertEquals(1, usersFromGroup.size());
+        assertThrows(UserNotInGroupException.class, () -> groupService.removeUserFromGroup(user2.getId(), group.getId()));
         userService.removeUser(user2.getId());
+        assertTrue(userService.findByUsernamePrefix("user2", 10).isEmpty());
     }
     @Test
     @Order(7)
@@ -163,6 +175,21 @@ public class UserAndGroupServiceTest {
         userService.removeUser(user.getId());
     }
 
-
-
+    @Test
+    @Order(10)
+    public void testAuthenticateRehashesOutdatedPassword() {
+        User user = userService.createUser(new User("rehashUser", "password"));
+        String configuredHash = user.getPassword();
+        String outdatedHash = BCrypt.hashpw("password", BCrypt.gensalt(4));
+        assertTrue(QuarkusTransaction.requiringNew().call(() -> userRepository.updatePasswordHash(user.getId(), configuredHash, outdatedHash)));
+
+        userService.authenticate("rehashUser", "password");
+
+        // read in a new transaction, past the copy of the user cached by the login
+        String upgradedHash = QuarkusTransaction.requiringNew().call(() -> userRepository.findById(user.getId()).getPassword());
+        assertNotEquals(outdatedHash, upgradedHash);
+        assertEquals(configuredHash.substring(0, 7), upgradedHash.substring(0, 7), "Not rehashed with the configured cost");
+        assertEquals(user.getId(), userService.authenticate("rehashUser", "password").getId());
+        userService.removeUser(user.getId());
+    }
 }
@@ -0,0 +1,100 @@
+package isel.leic.services;
+
+import io.quarkus.test.junit.QuarkusTest;
+import isel.leic.model.User;
+import isel.leic.model.UserSummary;
+import isel.leic.repository.UserRepository;
+import isel.leic.service.UserService;
+import isel.leic.service.UsernameIndex;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Usernames are chosen so byte order differs from dictionary order: upper case sorts before lower case and
+ * E with an acute accent (U+00C9, bytes 0xC3 0x89 in UTF-8) after every ASCII letter.
+ */
+@QuarkusTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class UsernameIndexTest {
+
+    @Inject
+    UsernameIndex usernameIndex;
+    @Inject
+    UserService userService;
+    @Inject
+    UserRepository userRepository;
+
+    private static Long betaId;
+    private static Long alphaId;
+    private static Long emileId;
+    private static Long charlieId;
+    private static Long zuluId;
+
+    @Test
+    @Order(1)
+    public void testRebuildIndexesUsersInByteOrder() {
+        betaId = userService.createUser(new User("idxBeta", "password")).getId();
+        alphaId = userService.createUser(new User("idxalpha", "password")).getId();
+        emileId = userService.createUser(new User("idx\u00c9mile", "password")).getId();
+
+        usernameIndex.rebuild();
+
+        assertTrue(usernameIndex.isReady(), "Index not ready after rebuild");
+        assertEquals(List.of("idxBeta", "idxalpha", "idx\u00c9mile"), usernames(usernameIndex.findByPrefix("idx", 10)));
+        assertEquals(List.of("idxBeta"), usernames(usernameIndex.findByPrefix("idx", 1)));
+        assertTrue(usernameIndex.findByPrefix("idy", 10).isEmpty());
+    }
+
+    @Test
+    @Order(2)
+    @Transactional
+    public void testDatabaseFallbackUsesIndexOrder() {
+        assertEquals(usernames(usernameIndex.findByPrefix("idx", 10)),
+                usernames(userRepository.findByUsernamePrefix("idx", 10)));
+    }
+
+    @Test
+    @Order(3)
+    public void testOverlayMergesWithRebuiltUsers() {
+        // created after the rebuild, so only the overlay knows them
+        charlieId = userService.createUser(new User("idxCharlie", "password")).getId();
+        zuluId = userService.createUser(new User("idxzulu", "password")).getId();
+
+        assertEquals(List.of("idxBeta", "idxCharlie", "idxalpha", "idxzulu", "idx\u00c9mile"),
+                usernames(usernameIndex.findByPrefix("idx", 10)));
+        assertEquals(List.of("idxBeta", "idxCharlie"), usernames(usernameIndex.findByPrefix("idx", 2)));
+        assertEquals(List.of(charlieId), usernameIndex.findByPrefix("idxC", 10).stream().map(UserSummary::id).toList());
+    }
+
+    @Test
+    @Order(4)
+    public void testRemovedUsersAreHidden() {
+        // one user from the sorted arrays, one from the overlay
+        userService.removeUser(betaId);
+        userService.removeUser(zuluId);
+
+        List<String> expected = List.of("idxCharlie", "idxalpha", "idx\u00c9mile");
+        assertEquals(expected, usernames(usernameIndex.findByPrefix("idx", 10)));
+        assertEquals(List.of("idxCharlie"), usernames(usernameIndex.findByPrefix("idx", 1)));
+
+        usernameIndex.rebuild();
+        assertEquals(expected, usernames(usernameIndex.findByPrefix("idx", 10)));
+
+        userService.removeUser(charlieId);
+        userService.removeUser(alphaId);
+        userService.removeUser(emileId);
+        assertTrue(usernameIndex.findByPrefix("idx", 10).isEmpty());
+    }
+
+    private static List<String> usernames(List<UserSummary> users) {
+        return users.stream().map(UserSummary::username).toList();
+    }
+}
@@ -0,0 +1,54 @@
+package isel.leic.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHasherTest {
+
+    @Test
+    public void testBCryptHashVerifiesAndDetectsCost() {
+        PasswordHasher hasher = new BCryptPasswordHasher(4);
+        String hash = hasher.hash("password");
+
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(hasher.supports(hash));
+        assertTrue(hasher.verify("password", hash));
+        assertFalse(hasher.verify("wrong", hash));
+        assertFalse(hasher.needsRehash(hash));
+        assertTrue(new BCryptPasswordHasher(5).needsRehash(hash));
+    }
+
+    @Test
+    public void testBCryptSupportsOnlyTheVersionJBCryptVerifies() {
+        PasswordHasher hasher = new BCryptPasswordHasher(4);
+        String hash = hasher.hash("password");
+
+        // jBCrypt rejects the $2b$ and $2y$ variants, so they must not be routed to it
+        assertFalse(hasher.supports("$2b$" + hash.substring(4)));
+        assertFalse(hasher.supports("$2y$" + hash.substring(4)));
+        assertThrows(IllegalArgumentException.class, () -> hasher.verify("password", "$2b$" + hash.substring(4)));
+    }
+
+    @Test
+    public void testArgon2HashVerifiesAndDetectsParameters() {
+        PasswordHasher hasher = new Argon2PasswordHasher(64, 1, 1);
+        String hash = hasher.hash("password");
+
+        assertTrue(hash.startsWith("$argon2id$v=19$m=64,t=1,p=1$"));
+        assertTrue(hasher.supports(hash));
+        assertTrue(hasher.verify("password", hash));
+        assertFalse(hasher.verify("wrong", hash));
+        assertFalse(hasher.needsRehash(hash));
+        assertTrue(new Argon2PasswordHasher(128, 1, 1).needsRehash(hash));
+    }
+
+    @Test
+    public void testHashFormatsAreDistinguished() {
+        String bcrypt = new BCryptPasswordHasher(4).hash("password");
+        String argon2 = new Argon2PasswordHasher(64, 1, 1).hash("password");
+
+        assertFalse(new Argon2PasswordHasher(64, 1, 1).supports(bcrypt));
+        assertFalse(new BCryptPasswordHasher(4).supports(argon2));
+    }
+}